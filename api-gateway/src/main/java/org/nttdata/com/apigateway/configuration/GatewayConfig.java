@@ -1,20 +1,43 @@
 package org.nttdata.com.apigateway.configuration;
 
+import org.nttdata.com.apigateway.routing.CachingDiscoveryRouteDefinitionLocator;
+import org.nttdata.com.apigateway.routing.IndexedRoutePredicateHandlerMapping;
 import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
 import org.springframework.cloud.gateway.discovery.DiscoveryClientRouteDefinitionLocator;
 import org.springframework.cloud.gateway.discovery.DiscoveryLocatorProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 @Configuration
 public class GatewayConfig {
 
+    // Una ruta por servicio descubierto (/servicio/** -> lb://servicio), regeneradas solo si cambian los servicios
     @Bean
-    public DiscoveryClientRouteDefinitionLocator discoveryClientRouteDefinitionLocator(
+    public CachingDiscoveryRouteDefinitionLocator discoveryClientRouteDefinitionLocator(
             ReactiveDiscoveryClient discoveryClient,
-            DiscoveryLocatorProperties properties) {
+            DiscoveryLocatorProperties properties,
+            ApplicationEventPublisher publisher) {
         properties.setLowerCaseServiceId(true);
         properties.setRouteIdPrefix("");
-        return new DiscoveryClientRouteDefinitionLocator(discoveryClient, properties);
+        return new CachingDiscoveryRouteDefinitionLocator(discoveryClient,
+                new DiscoveryClientRouteDefinitionLocator(discoveryClient, properties), publisher);
+    }
+
+    // Búsqueda de la ruta por prefijo de path en lugar de evaluar todos los predicados
+    @Bean
+    public IndexedRoutePredicateHandlerMapping routePredicateHandlerMapping(
+            FilteringWebHandler webHandler,
+            RouteLocator routeLocator,
+            RouteDefinitionLocator routeDefinitionLocator,
+            GlobalCorsProperties globalCorsProperties,
+            Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, routeDefinitionLocator,
+                globalCorsProperties, environment);
     }
 }
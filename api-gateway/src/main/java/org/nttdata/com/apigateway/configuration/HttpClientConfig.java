@@ -0,0 +1,18 @@
+package org.nttdata.com.apigateway.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+@Configuration
+public class HttpClientConfig {
+
+    // Protocolos del cliente Netty que usa el gateway para llamar a los servicios
+    @Bean
+    public HttpClientCustomizer upstreamProtocols(
+            @Value("${gateway.http-client.protocols:H2C,HTTP11}") HttpProtocol[] protocols) {
+        return httpClient -> httpClient.protocol(protocols);
+    }
+}
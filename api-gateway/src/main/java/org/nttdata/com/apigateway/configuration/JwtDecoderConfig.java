@@ -0,0 +1,55 @@
+package org.nttdata.com.apigateway.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.nttdata.com.apigateway.security.CachingJwtDecoder;
+import org.nttdata.com.apigateway.security.JwkSetProvider;
+import org.nttdata.com.apigateway.security.JwtProperties;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+
+@Configuration
+public class JwtDecoderConfig {
+
+    private static final String TOKEN_USE_CLAIM = "token_use";
+    private static final String ACCESS = "access";
+
+    @Bean
+    public JwkSetProvider jwkSetProvider(WebClient.Builder webClientBuilder,
+                                         OAuth2ResourceServerProperties resourceServerProperties,
+                                         JwtProperties properties,
+                                         MeterRegistry meterRegistry) {
+        URI jwkSetUri = URI.create(resourceServerProperties.getJwt().getJwkSetUri());
+        return new JwkSetProvider(webClientBuilder.build(), jwkSetUri, properties, meterRegistry);
+    }
+
+    // Reemplaza el decoder autoconfigurado: claves en memoria + cache de tokens verificados
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(JwkSetProvider jwkSetProvider,
+                                         JwtProperties properties,
+                                         MeterRegistry meterRegistry) {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(verifier(jwkSetProvider, properties.issuer()), properties.cacheMaxEntries(),
+                properties.cacheMaxTtl());
+        CaffeineCacheMetrics.monitor(meterRegistry, decoder.cache(), "gateway.jwt.claims");
+        return decoder;
+    }
+
+    // Solo access tokens del emisor configurado: el refresh token se firma con la misma clave y no debe
+    // valer como credencial en las rutas (ni llegar a la cache de tokens verificados)
+    public static NimbusReactiveJwtDecoder verifier(JwkSetProvider jwkSetProvider, String issuer) {
+        NimbusReactiveJwtDecoder verifier = NimbusReactiveJwtDecoder.withJwkSource(jwkSetProvider::keys).build();
+        verifier.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(issuer),
+                new JwtClaimValidator<String>(TOKEN_USE_CLAIM, ACCESS::equals)));
+        return verifier;
+    }
+}
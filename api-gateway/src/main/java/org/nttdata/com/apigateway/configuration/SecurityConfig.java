@@ -1,18 +1,33 @@
 package org.nttdata.com.apigateway.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+import java.net.InetSocketAddress;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
     @Bean
-    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
+                                                            @Value("${management.server.port:-1}") int managementPort) {
         http
+                // API sin sesión: la credencial es el bearer token de Authorization, que el navegador no
+                // adjunta solo, así que no hay petición entre sitios que falsificar. Con CSRF activo el
+                // gateway rechaza con 403 todo POST/PUT/DELETE de los clientes de la API
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                // Sin WebSession: el contexto de seguridad sale del token en cada petición
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
                 .authorizeExchange(authorize -> authorize
                         .pathMatchers(
                                 "/servicioclientes/api-docs/**",
@@ -26,6 +41,22 @@ public class SecurityConfig {
                                 "/swagger-ui.html"
                         ).permitAll()
                         .pathMatchers("/public/**").permitAll()
+                        .pathMatchers("/actuator/health", "/actuator/info").permitAll()
+                        // Métricas sin token solo en el puerto de management (red interna); en el público no
+                        .matchers(new AndServerWebExchangeMatcher(
+                                ServerWebExchangeMatchers.pathMatchers("/actuator/prometheus"),
+                                localPort(managementPort))).permitAll()
+                        // Endpoints de user-service que se usan antes de tener token (o para validarlo);
+                        // solo con su método, el resto de /api/auth y /api/users exige token
+                        .pathMatchers(HttpMethod.POST,
+                                "/user-service/api/auth/login",
+                                "/user-service/api/auth/refresh",
+                                "/user-service/api/users/register"
+                        ).permitAll()
+                        .pathMatchers(HttpMethod.GET,
+                                "/user-service/api/auth/jwks",
+                                "/user-service/api/auth/health"
+                        ).permitAll()
                         .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -33,4 +64,13 @@ public class SecurityConfig {
                 );
         return http.build();
     }
+
+    private static ServerWebExchangeMatcher localPort(int port) {
+        return exchange -> {
+            InetSocketAddress local = exchange.getRequest().getLocalAddress();
+            return port > 0 && local != null && local.getPort() == port
+                    ? ServerWebExchangeMatcher.MatchResult.match()
+                    : ServerWebExchangeMatcher.MatchResult.notMatch();
+        };
+    }
 }
\ No newline at end of file
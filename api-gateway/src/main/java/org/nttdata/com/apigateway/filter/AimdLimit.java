@@ -0,0 +1,65 @@
+package org.nttdata.com.apigateway.filter;
+
+import org.nttdata.com.apigateway.filter.UpstreamProtectionProperties.Limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de concurrencia adaptativo (incremento aditivo, decremento multiplicativo).
+ *
+ * Crece solo cuando se está usando (al menos la mitad ocupada) para no inflarse con poco tráfico.
+ */
+final class AimdLimit {
+
+    private final int min;
+    private final int max;
+    private final double backoffRatio;
+    private final long dropLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    AimdLimit(Limit settings) {
+        this.min = settings.min();
+        this.max = settings.max();
+        this.backoffRatio = settings.backoffRatio();
+        this.dropLatencyNanos = settings.dropLatency().toNanos();
+        this.limit = Math.clamp(settings.initial(), min, max);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Libera el permiso y ajusta el límite con la muestra
+    void release(long latencyNanos, boolean dropped) {
+        int observed = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || latencyNanos > dropLatencyNanos) {
+                limit = Math.max(min, limit * backoffRatio);
+            } else if (observed * 2 >= limit) {
+                limit = Math.min(max, limit + 1);
+            }
+        }
+    }
+
+    // Petición cancelada por el cliente: no aporta información sobre el servicio
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,248 @@
+package org.nttdata.com.apigateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Count;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.KeyType;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Rule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.headers.TrustedProxies;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Limita peticiones por principal y/o IP con token buckets en memoria ({@link TokenBucketTable}),
+ * sin Redis: cada instancia del gateway aplica el límite por separado.
+ *
+ * Una petición que agota algún bucket recibe 429 con Retry-After (segundos hasta el próximo token)
+ * y no llega al servicio. Va antes de la cache y de la protección de servicios.
+ *
+ * Las reglas con count FAILURES no consumen token al pasar: solo comprueban que quede alguno y lo
+ * consumen si la respuesta es 401/403. Peticiones concurrentes del mismo cliente pueden pasar todas
+ * con el último token; el exceso queda acotado por la concurrencia de ese cliente.
+ *
+ * La IP del cliente es la del socket. Si esa IP es de un proxy de confianza (trusted-proxies), se
+ * recorre X-Forwarded-For de derecha a izquierda y se toma la primera dirección que no es de un
+ * proxy de confianza: lo que el cliente escribe a la izquierda no cambia su clave.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ResponseCacheFilter.ORDER - 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Environment environment;
+    private final TokenBucketTable buckets;
+    private final Counter allowed;
+    private final Counter limited;
+    private volatile Settings settings;
+
+    public RateLimitFilter(RateLimitProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.buckets = new TokenBucketTable(properties.maxKeys(), properties.idleTimeout());
+        this.settings = new Settings(properties);
+        this.allowed = Counter.builder("gateway.rate-limit.requests").tag("result", "allowed").register(meterRegistry);
+        this.limited = Counter.builder("gateway.rate-limit.requests").tag("result", "limited").register(meterRegistry);
+        Gauge.builder("gateway.rate-limit.keys", buckets, TokenBucketTable::size).register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Settings current = settings;
+        if (!current.enabled || current.rules.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(principal -> {
+                    List<FailureCharge> failures = new ArrayList<>(0);
+                    long waitNanos = acquire(current, exchange.getRequest(), principal.orElse(null), failures);
+                    if (waitNanos > 0) {
+                        limited.increment();
+                        return reject(exchange.getResponse(), waitNanos);
+                    }
+                    allowed.increment();
+                    if (!failures.isEmpty()) {
+                        chargeOnFailure(exchange.getResponse(), failures);
+                    }
+                    return chain.filter(exchange);
+                });
+    }
+
+    // 0 si todas las reglas que aplican tienen token; si no, la mayor espera.
+    // Las reglas FAILURES se dejan en failures para cobrarlas según la respuesta
+    private long acquire(Settings current, ServerHttpRequest request, Principal principal,
+                         List<FailureCharge> failures) {
+        long now = System.nanoTime();
+        long waitNanos = 0;
+        String ip = null;
+        for (CompiledRule rule : current.rules) {
+            if (!rule.matches(request)) {
+                continue;
+            }
+            // PRINCIPAL sin autenticar: la regla no aplica
+            String client;
+            if (rule.keyType != KeyType.IP && principal != null) {
+                client = "sub:" + principal.getName();
+            } else if (rule.keyType == KeyType.PRINCIPAL) {
+                continue;
+            } else {
+                if (ip == null) {
+                    ip = current.clientIp(request);
+                }
+                client = "ip:" + ip;
+            }
+            String key = rule.id + client;
+            if (rule.count == Count.FAILURES) {
+                waitNanos = Math.max(waitNanos, buckets.waitNanos(key, rule.emissionIntervalNanos, rule.burst, now));
+                failures.add(new FailureCharge(rule, key));
+            } else {
+                waitNanos = Math.max(waitNanos,
+                        buckets.tryAcquire(key, rule.emissionIntervalNanos, rule.burst, now));
+            }
+        }
+        return waitNanos;
+    }
+
+    private void chargeOnFailure(ServerHttpResponse response, List<FailureCharge> failures) {
+        response.beforeCommit(() -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status != null && (status.value() == 401 || status.value() == 403)) {
+                long now = System.nanoTime();
+                for (FailureCharge failure : failures) {
+                    buckets.tryAcquire(failure.key(), failure.rule().emissionIntervalNanos, failure.rule().burst, now);
+                }
+            }
+            return Mono.empty();
+        });
+    }
+
+    // Reglas cambiadas en el config server: se vuelven a enlazar sin reiniciar
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(RateLimitProperties.PREFIX))) {
+            RateLimitProperties properties = Binder.get(environment)
+                    .bindOrCreate(RateLimitProperties.PREFIX, RateLimitProperties.class);
+            settings = new Settings(properties);
+            logger.info("Reglas de rate limit recargadas: {}", properties.rules().size());
+        }
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, long waitNanos) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return response.setComplete();
+    }
+
+    private record FailureCharge(CompiledRule rule, String key) {
+    }
+
+    private static final class Settings {
+
+        private final boolean enabled;
+        private final List<CompiledRule> rules;
+        private final TrustedProxies trustedProxies;
+
+        Settings(RateLimitProperties properties) {
+            this.enabled = properties.enabled();
+            PathPatternParser parser = PathPatternParser.defaultInstance;
+            this.rules = properties.rules().stream()
+                    .map(rule -> new CompiledRule(parser.parse(rule.path()), rule))
+                    .toList();
+            this.trustedProxies = StringUtils.hasText(properties.trustedProxies())
+                    ? TrustedProxies.from(properties.trustedProxies()) : null;
+        }
+
+        String clientIp(ServerHttpRequest request) {
+            InetSocketAddress remote = request.getRemoteAddress();
+            String ip = remote != null && remote.getAddress() != null
+                    ? remote.getAddress().getHostAddress() : "unknown";
+            if (trustedProxies == null || !trustedProxies.isTrusted(ip)) {
+                return ip;
+            }
+            // Cada proxy añade a la derecha la IP de quien le habló; la izquierda la escribe el cliente
+            List<String> forwarded = request.getHeaders().getOrEmpty(X_FORWARDED_FOR);
+            for (int i = forwarded.size() - 1; i >= 0; i--) {
+                String[] hops = forwarded.get(i).split(",");
+                for (int j = hops.length - 1; j >= 0; j--) {
+                    String hop = hops[j].trim();
+                    if (hop.isEmpty()) {
+                        continue;
+                    }
+                    ip = hop;
+                    if (!trustedProxies.isTrusted(hop)) {
+                        return hop;
+                    }
+                }
+            }
+            return ip;
+        }
+    }
+
+    private static final class CompiledRule {
+
+        private final String id;
+        private final PathPattern pattern;
+        private final Set<String> methods;
+        private final KeyType keyType;
+        private final Count count;
+        private final long emissionIntervalNanos;
+        private final int burst;
+
+        CompiledRule(PathPattern pattern, Rule rule) {
+            this.pattern = pattern;
+            this.methods = rule.methods().stream()
+                    .map(method -> method.toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            this.keyType = rule.key();
+            this.count = rule.count();
+            this.emissionIntervalNanos = Math.max(1, rule.period().toNanos() / Math.max(1, rule.permits()));
+            this.burst = Math.max(1, rule.burst());
+            // Las reglas con la misma definición comparten buckets tras una recarga
+            this.id = rule.path() + methods + keyType + count + ":" + emissionIntervalNanos + "/" + burst + "|";
+        }
+
+        boolean matches(ServerHttpRequest request) {
+            return (methods.isEmpty() || methods.contains(request.getMethod().name()))
+                    && pattern.matches(request.getPath().pathWithinApplication());
+        }
+    }
+}
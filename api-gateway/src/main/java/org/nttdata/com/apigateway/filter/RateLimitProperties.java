@@ -0,0 +1,57 @@
+package org.nttdata.com.apigateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Límites de peticiones del gateway ({@link RateLimitFilter}). Se aplican todas las reglas cuya
+ * ruta coincide; se recargan en caliente cuando cambian en el config server (/actuator/refresh).
+ *
+ * @param maxKeys        máximo de buckets en memoria (clientes distintos)
+ * @param idleTimeout    un bucket sin uso durante este tiempo se descarta (ya estaría lleno)
+ * @param trustedProxies expresión regular con las IP de los proxies delante del gateway (balanceador);
+ *                       solo de ellos se acepta X-Forwarded-For. Vacío = la IP es la del socket
+ */
+@ConfigurationProperties(RateLimitProperties.PREFIX)
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxKeys,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("") String trustedProxies,
+        @DefaultValue List<Rule> rules) {
+
+    public static final String PREFIX = "gateway.rate-limit";
+
+    /**
+     * Bucket de {@code burst} peticiones que se repone a razón de {@code permits} por {@code period}.
+     *
+     * @param path    patrón de ruta del gateway (p. ej. /user-service/api/users/register)
+     * @param methods métodos a los que aplica; vacío = todos
+     * @param count   qué peticiones consumen token; con FAILURES el bucket lleno no frena a nadie
+     */
+    public record Rule(
+            String path,
+            @DefaultValue List<String> methods,
+            @DefaultValue("PRINCIPAL_OR_IP") KeyType key,
+            @DefaultValue("50") int permits,
+            @DefaultValue("1s") Duration period,
+            @DefaultValue("100") int burst,
+            @DefaultValue("ALL") Count count) {
+    }
+
+    public enum KeyType {
+        // Subject del token; sin autenticar, la IP
+        PRINCIPAL_OR_IP,
+        PRINCIPAL,
+        IP
+    }
+
+    public enum Count {
+        ALL,
+        // Solo respuestas 401/403 (p. ej. login: frena la fuerza bruta, no los logins correctos)
+        FAILURES
+    }
+}
@@ -0,0 +1,402 @@
+package org.nttdata.com.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.apigateway.filter.ResponseCacheProperties.Rule;
+import org.nttdata.com.apigateway.filter.ResponseCacheProperties.VaryBy;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Cache local y acotada de respuestas GET de lecturas que cambian poco (roles, /me).
+ *
+ * La clave incluye la ruta, el principal (subject o authorities según la regla) y Accept/Accept-Encoding.
+ * Una entrada fresca se sirve directamente (o 304 si el cliente ya tiene su ETag); pasada la ttl y dentro
+ * de la ventana stale-while-revalidate se sirve la copia vieja y se revalida en segundo plano contra la
+ * misma instancia con If-None-Match, así una ralentización del servicio no llega a la latencia del cliente.
+ * La revalidación usa las credenciales de la petición que la dispara, nunca las de quien llenó la entrada.
+ * No se guardan respuestas con Cache-Control no-store o private.
+ *
+ * X-Cache-Invalidate (etiquetas separadas por comas) en una respuesta invalida las entradas con esas
+ * etiquetas guardadas desde la misma ruta; de otras rutas se ignora. La cabecera nunca se reenvía al cliente.
+ * Invalidar no recorre la cache: se anota la secuencia de la invalidación por etiqueta y una entrada leída
+ * antes de esa secuencia se descarta al consultarla. La invalidación es local a cada instancia del gateway:
+ * entre instancias la ttl acota la antigüedad.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // Antes de NettyWriteResponseFilter para poder decorar la respuesta y capturar el cuerpo
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 10;
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+    static final String INVALIDATE_HEADER = "X-Cache-Invalidate";
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private static final Set<String> UNCACHEABLE_HEADERS = Set.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.SET_COOKIE,
+            CACHE_STATUS_HEADER, INVALIDATE_HEADER);
+
+    private final ResponseCacheProperties properties;
+    private final List<CompiledRule> rules;
+    private final Cache<String, CachedResponse> cache;
+    // Secuencia de la última invalidación por ruta y etiqueta; basta recordarla lo que vive una entrada
+    private final Cache<String, Long> invalidatedAt;
+    private final AtomicLong sequence = new AtomicLong();
+    private final WebClient webClient;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter notModified;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public ResponseCacheFilter(ResponseCacheProperties properties, WebClient.Builder webClientBuilder,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        this.rules = properties.rules().stream()
+                .map(rule -> new CompiledRule(parser.parse(rule.path()), rule))
+                .toList();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxEntries())
+                .expireAfterWrite(properties.ttl().plus(properties.staleWhileRevalidate()))
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(properties.ttl().plus(properties.staleWhileRevalidate()))
+                .build();
+        this.webClient = webClientBuilder.build();
+        this.ttlNanos = properties.ttl().toNanos();
+
+        // Tasa de aciertos = (hit + stale + not_modified) / total
+        this.hits = result(meterRegistry, "hit");
+        this.staleHits = result(meterRegistry, "stale");
+        this.notModified = result(meterRegistry, "not_modified");
+        this.misses = result(meterRegistry, "miss");
+        this.invalidations = Counter.builder("gateway.response.cache.invalidations").register(meterRegistry);
+        Gauge.builder("gateway.response.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        applyInvalidationHints(exchange);
+        if (!properties.enabled()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        CompiledRule rule = request.getMethod() == HttpMethod.GET ? match(request) : null;
+        if (rule == null) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .cast(JwtAuthenticationToken.class)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(principal -> principal.isPresent()
+                        ? cached(exchange, chain, rule.rule(), principal.get())
+                        : chain.filter(exchange));
+    }
+
+    private Mono<Void> cached(ServerWebExchange exchange, GatewayFilterChain chain, Rule rule,
+                              JwtAuthenticationToken principal) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = key(request, rule, principal);
+        CachedResponse entry = cache.getIfPresent(key);
+        if (entry != null && invalidated(entry)) {
+            cache.asMap().remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return chain.filter(exchange.mutate()
+                    .response(new CapturingResponse(exchange, key, tags(exchange, rule, principal), sequence.get()))
+                    .build());
+        }
+
+        boolean fresh = System.nanoTime() - entry.storedAt < ttlNanos;
+        if (!fresh) {
+            revalidate(key, entry, request.getHeaders());
+        }
+        String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (entry.etag != null && entry.etag.equals(ifNoneMatch)) {
+            notModified.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(entry.etag);
+            response.getHeaders().set(CACHE_STATUS_HEADER, fresh ? "HIT" : "STALE");
+            return response.setComplete();
+        }
+        (fresh ? hits : staleHits).increment();
+        return write(exchange.getResponse(), entry, fresh ? "HIT" : "STALE");
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse entry, String cacheStatus) {
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(entry.headers);
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.body)));
+    }
+
+    // Revalidación en segundo plano, una a la vez por entrada, con las credenciales de quien la dispara
+    private void revalidate(String key, CachedResponse entry, HttpHeaders requestHeaders) {
+        if (entry.revalidateUri == null || !entry.revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        long startedAt = sequence.get();
+        webClient.get()
+                .uri(entry.revalidateUri)
+                .headers(headers -> {
+                    headers.addAll(revalidateHeaders(requestHeaders));
+                    if (entry.etag != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, entry.etag);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                        cache.asMap().replace(key, entry, entry.refreshed(startedAt));
+                        return response.releaseBody();
+                    }
+                    if (response.statusCode() == HttpStatus.OK) {
+                        HttpHeaders headers = response.headers().asHttpHeaders();
+                        if (!storable(headers)) {
+                            cache.asMap().remove(key, entry);
+                            return response.releaseBody();
+                        }
+                        return response.bodyToMono(byte[].class)
+                                .defaultIfEmpty(new byte[0])
+                                .doOnNext(body -> cache.asMap().replace(key, entry,
+                                        entry.replacedBy(headers, body, startedAt)))
+                                .then();
+                    }
+                    if (response.statusCode().is4xxClientError()) {
+                        // Credencial vencida, recurso borrado o permisos retirados: no volver a servirla
+                        cache.asMap().remove(key, entry);
+                    }
+                    return response.releaseBody();
+                })
+                .timeout(properties.revalidateTimeout())
+                .doFinally(signal -> entry.revalidating.set(false))
+                .subscribe(null, error -> logger.debug("Revalidation of {} failed: {}",
+                        entry.revalidateUri, error.toString()));
+    }
+
+    // Invalidación por etiquetas pedida por el servicio, antes de que la respuesta se envíe
+    private void applyInvalidationHints(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            List<String> hints = response.getHeaders().remove(INVALIDATE_HEADER);
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (hints != null && route != null && properties.enabled()) {
+                long invalidation = sequence.incrementAndGet();
+                hints.stream()
+                        .flatMap(hint -> Arrays.stream(hint.split(",")))
+                        .map(String::trim)
+                        .filter(StringUtils::hasText)
+                        .forEach(tag -> invalidatedAt.asMap().merge(scoped(route, tag), invalidation, Math::max));
+                invalidations.increment();
+            }
+            return Mono.empty();
+        });
+    }
+
+    private boolean invalidated(CachedResponse entry) {
+        for (String tag : entry.tags) {
+            Long invalidation = invalidatedAt.getIfPresent(tag);
+            if (invalidation != null && invalidation > entry.readAt) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Una etiqueta solo la invalida la ruta desde la que se guardó la entrada
+    private static String scoped(Route route, String tag) {
+        return route.getId() + "|" + tag;
+    }
+
+    // Cache-Control no-store o private (también private="campo") prohíben guardar la respuesta en el gateway
+    private static boolean storable(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String name = directive.trim().toLowerCase(Locale.ROOT);
+                if (name.startsWith("no-store") || name.startsWith("private")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static HttpHeaders revalidateHeaders(HttpHeaders request) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)) {
+            List<String> values = request.get(name);
+            if (values != null) {
+                headers.put(name, values);
+            }
+        }
+        return headers;
+    }
+
+    private CompiledRule match(ServerHttpRequest request) {
+        for (CompiledRule rule : rules) {
+            if (rule.pattern().matches(request.getPath().pathWithinApplication())) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static String key(ServerHttpRequest request, Rule rule, JwtAuthenticationToken principal) {
+        String varyBy = rule.varyBy() == VaryBy.SUBJECT
+                ? "sub=" + principal.getName()
+                : "authorities=" + authorities(principal);
+        HttpHeaders headers = request.getHeaders();
+        return String.join("|", rule.path(), varyBy, request.getURI().getRawPath(),
+                Objects.toString(request.getURI().getRawQuery(), ""),
+                Objects.toString(headers.getFirst(HttpHeaders.ACCEPT), ""),
+                Objects.toString(headers.getFirst(HttpHeaders.ACCEPT_ENCODING), ""));
+    }
+
+    private static String authorities(JwtAuthenticationToken principal) {
+        List<String> claim = principal.getToken().getClaimAsStringList("authorities");
+        Collection<String> authorities = claim != null ? claim
+                : principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        return authorities.stream().sorted().collect(Collectors.joining(","));
+    }
+
+    private static Set<String> tags(ServerWebExchange exchange, Rule rule, JwtAuthenticationToken principal) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return Set.of();
+        }
+        return rule.tags().stream()
+                .map(tag -> scoped(route, tag.replace("{sub}", principal.getName())))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static Counter result(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache")
+                .description("Peticiones GET cacheables por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Captura el cuerpo de una respuesta 200 para guardarlo; el resto pasa sin tocar
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Set<String> tags;
+        private final long readAt;
+
+        CapturingResponse(ServerWebExchange exchange, String key, Set<String> tags, long readAt) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.tags = tags;
+            this.readAt = readAt;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (getStatusCode() != HttpStatus.OK || !storable(getHeaders())) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                if (bytes.length <= properties.maxBodyBytes()) {
+                    cache.put(key, new CachedResponse(getHeaders(), bytes, tags,
+                            exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR), readAt));
+                }
+                getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    private record CompiledRule(PathPattern pattern, Rule rule) {
+    }
+
+    private static final class CachedResponse {
+
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final String etag;
+        private final Set<String> tags;
+        // Instancia ya resuelta por el load balancer; sin credenciales, las pone quien revalida
+        private final URI revalidateUri;
+        // Secuencia de invalidaciones cuando se pidió al servicio la versión guardada
+        private final long readAt;
+        private final long storedAt = System.nanoTime();
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        CachedResponse(HttpHeaders responseHeaders, byte[] body, Set<String> tags, URI revalidateUri, long readAt) {
+            HttpHeaders headers = new HttpHeaders();
+            responseHeaders.forEach((name, values) -> {
+                if (UNCACHEABLE_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            this.etag = headers.getETag();
+            this.tags = tags;
+            this.revalidateUri = revalidateUri;
+            this.readAt = readAt;
+        }
+
+        CachedResponse refreshed(long readAt) {
+            return new CachedResponse(headers, body, tags, revalidateUri, readAt);
+        }
+
+        CachedResponse replacedBy(HttpHeaders responseHeaders, byte[] newBody, long readAt) {
+            return new CachedResponse(responseHeaders, newBody, tags, revalidateUri, readAt);
+        }
+    }
+}
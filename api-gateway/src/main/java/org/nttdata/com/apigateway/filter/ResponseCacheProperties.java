@@ -0,0 +1,41 @@
+package org.nttdata.com.apigateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cache de respuestas GET en el gateway ({@link ResponseCacheFilter}).
+ *
+ * @param ttl                  tiempo en que una entrada se sirve sin consultar al servicio
+ * @param staleWhileRevalidate ventana posterior al ttl en que se sirve la copia vieja mientras se
+ *                             revalida en segundo plano con If-None-Match
+ * @param rules                rutas cacheables; solo se cachean peticiones autenticadas que coinciden
+ */
+@ConfigurationProperties("gateway.response-cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maxEntries,
+        @DefaultValue("262144") int maxBodyBytes,
+        @DefaultValue("30s") Duration ttl,
+        @DefaultValue("5m") Duration staleWhileRevalidate,
+        @DefaultValue("5s") Duration revalidateTimeout,
+        @DefaultValue List<Rule> rules) {
+
+    /**
+     * @param path   patrón de ruta del gateway (p. ej. /user-service/api/roles/**)
+     * @param varyBy parte del principal que entra en la clave
+     * @param tags   etiquetas para la invalidación por X-Cache-Invalidate; {sub} se sustituye por el subject
+     */
+    public record Rule(String path, @DefaultValue("SUBJECT") VaryBy varyBy, @DefaultValue List<String> tags) {
+    }
+
+    public enum VaryBy {
+        // Respuesta propia de cada usuario (/me)
+        SUBJECT,
+        // Respuesta que solo depende de los permisos (catálogo de roles): se comparte entre usuarios
+        AUTHORITIES
+    }
+}
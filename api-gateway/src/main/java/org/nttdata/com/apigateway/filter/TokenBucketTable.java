@@ -0,0 +1,66 @@
+package org.nttdata.com.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tabla de token buckets en memoria, sin locks.
+ *
+ * Cada bucket es un solo AtomicLong con el "theoretical arrival time" del algoritmo GCRA
+ * (equivalente a un token bucket): consumir un token es un compareAndSet, sin hilo de reposición
+ * ni marcas de tiempo por token. La tabla es una cache Caffeine (hash concurrente segmentado) que
+ * descarta los buckets sin uso y acota el número de claves.
+ */
+final class TokenBucketTable {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    TokenBucketTable(long maxKeys, Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @param emissionIntervalNanos tiempo de reposición de un token (period / permits)
+     * @param burst                 capacidad del bucket
+     * @return 0 si se permite; si no, nanosegundos hasta que haya un token disponible
+     */
+    long tryAcquire(String key, long emissionIntervalNanos, int burst, long nowNanos) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(nowNanos));
+        long tolerance = emissionIntervalNanos * burst;
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long waitNanos = next - tolerance - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Como {@link #tryAcquire} pero sin consumir el token.
+     */
+    long waitNanos(String key, long emissionIntervalNanos, int burst, long nowNanos) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival == null) {
+            return 0;
+        }
+        long next = Math.max(arrival.get(), nowNanos) + emissionIntervalNanos;
+        return Math.max(0, next - emissionIntervalNanos * burst - nowNanos);
+    }
+
+    long size() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,280 @@
+package org.nttdata.com.apigateway.filter;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Protege a los servicios configurados (por service id de la ruta lb://) cuando se ralentizan.
+ *
+ * 1. GET idénticos en curso (misma ruta, query, principal y Accept) comparten una sola llamada: el
+ *    primero llega al servicio y el resto recibe la misma respuesta.
+ * 2. Un límite de concurrencia adaptativo ({@link AimdLimit}) por servicio rechaza con 503 lo que
+ *    excede la capacidad observada en lugar de encolarlo hasta el timeout.
+ * 3. Un circuit breaker (resilience4j) por servicio, alimentado con errores, 5xx y llamadas lentas,
+ *    responde 503 con Retry-After sin llamar al servicio mientras está abierto.
+ *
+ * Va después de {@link ResponseCacheFilter}: los aciertos de cache no consumen capacidad.
+ */
+@Component
+public class UpstreamProtectionFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 5;
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION);
+
+    private final boolean enabled;
+    private final Map<String, Upstream> upstreams = new HashMap<>();
+    private final Map<String, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public UpstreamProtectionFilter(UpstreamProtectionProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        properties.services().forEach((serviceId, settings) -> {
+            String id = serviceId.toLowerCase(Locale.ROOT);
+            upstreams.put(id, new Upstream(id, settings,
+                    circuitBreakers.circuitBreaker(id, circuitBreakerConfig(settings.circuitBreaker())),
+                    meterRegistry));
+        });
+        // resilience4j_circuitbreaker_state, _calls, _failure_rate... con tag name=<service id>
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Upstream upstream = enabled ? upstream(exchange.getAttribute(GATEWAY_ROUTE_ATTR)) : null;
+        if (upstream == null) {
+            return chain.filter(exchange);
+        }
+        if (upstream.settings.coalesce() && exchange.getRequest().getMethod() == HttpMethod.GET) {
+            return exchange.getPrincipal()
+                    .map(Principal::getName)
+                    .defaultIfEmpty("anonymous")
+                    .flatMap(principal -> coalesce(exchange, chain, upstream, key(upstream, exchange.getRequest(), principal)));
+        }
+        return protect(exchange, chain, upstream);
+    }
+
+    // Rutas de discovery: lb://<service id>
+    private Upstream upstream(Route route) {
+        if (route == null || !"lb".equals(route.getUri().getScheme()) || route.getUri().getHost() == null) {
+            return null;
+        }
+        return upstreams.get(route.getUri().getHost().toLowerCase(Locale.ROOT));
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain, Upstream upstream, String key) {
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            upstream.coalesced.increment();
+            // Sin respuesta compartida (el primero no llegó a escribir cuerpo): se llama por cuenta propia
+            return leader.asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent()
+                            ? shared.get().writeTo(exchange.getResponse())
+                            : protect(exchange, chain, upstream));
+        }
+
+        ServerHttpResponseDecorator sharing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    inFlight.remove(key, sink);
+                    sink.tryEmitValue(new SharedResponse(getStatusCode(), getHeaders(), bytes));
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        return protect(exchange.mutate().response(sharing).build(), chain, upstream)
+                .doOnError(error -> {
+                    inFlight.remove(key, sink);
+                    sink.tryEmitError(error);
+                })
+                .doFinally(signal -> {
+                    inFlight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    private Mono<Void> protect(ServerWebExchange exchange, GatewayFilterChain chain, Upstream upstream) {
+        CircuitBreaker circuitBreaker = upstream.circuitBreaker;
+        if (!circuitBreaker.tryAcquirePermission()) {
+            upstream.rejectedOpen.increment();
+            return reject(exchange, upstream.retryAfterOpen);
+        }
+        if (!upstream.limit.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            upstream.rejectedLimit.increment();
+            return reject(exchange, 1);
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean done = new AtomicBoolean();
+        return chain.filter(exchange)
+                .doOnSuccess(ignored -> {
+                    if (done.compareAndSet(false, true)) {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        record(upstream, start, status != null && status.is5xxServerError()
+                                ? new UpstreamErrorException(status) : null);
+                    }
+                })
+                .doOnError(error -> {
+                    if (done.compareAndSet(false, true)) {
+                        record(upstream, start, error);
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (done.compareAndSet(false, true)) {
+                        circuitBreaker.releasePermission();
+                        upstream.limit.cancel();
+                    }
+                });
+    }
+
+    private static void record(Upstream upstream, long start, Throwable error) {
+        long elapsed = System.nanoTime() - start;
+        upstream.limit.release(elapsed, error != null);
+        if (error != null) {
+            upstream.circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, error);
+        } else {
+            upstream.circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long retryAfterSeconds) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private static String key(Upstream upstream, ServerHttpRequest request, String principal) {
+        HttpHeaders headers = request.getHeaders();
+        return String.join("|", upstream.serviceId, principal, request.getURI().getRawPath(),
+                Objects.toString(request.getURI().getRawQuery(), ""),
+                Objects.toString(headers.getFirst(HttpHeaders.ACCEPT), ""),
+                Objects.toString(headers.getFirst(HttpHeaders.ACCEPT_ENCODING), ""));
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(UpstreamProtectionProperties.CircuitBreaker settings) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(settings.failureRateThreshold())
+                .slowCallRateThreshold(settings.slowCallRateThreshold())
+                .slowCallDurationThreshold(settings.slowCallDuration())
+                .slidingWindowSize(settings.slidingWindowSize())
+                .minimumNumberOfCalls(settings.minimumCalls())
+                .waitDurationInOpenState(settings.waitInOpen())
+                .permittedNumberOfCallsInHalfOpenState(settings.halfOpenCalls())
+                .build();
+    }
+
+    private static final class Upstream {
+
+        private final String serviceId;
+        private final UpstreamProtectionProperties.Service settings;
+        private final CircuitBreaker circuitBreaker;
+        private final AimdLimit limit;
+        private final long retryAfterOpen;
+        private final Counter coalesced;
+        private final Counter rejectedLimit;
+        private final Counter rejectedOpen;
+
+        Upstream(String serviceId, UpstreamProtectionProperties.Service settings, CircuitBreaker circuitBreaker,
+                 MeterRegistry meterRegistry) {
+            this.serviceId = serviceId;
+            this.settings = settings;
+            this.circuitBreaker = circuitBreaker;
+            this.limit = new AimdLimit(settings.limit());
+            this.retryAfterOpen = Math.max(1, settings.circuitBreaker().waitInOpen().toSeconds());
+            this.coalesced = Counter.builder("gateway.upstream.coalesced")
+                    .description("GET servidos con la respuesta de una llamada idéntica en curso")
+                    .tag("service", serviceId)
+                    .register(meterRegistry);
+            this.rejectedLimit = rejected(meterRegistry, serviceId, "limit");
+            this.rejectedOpen = rejected(meterRegistry, serviceId, "circuit_open");
+            Gauge.builder("gateway.upstream.concurrency.limit", limit, AimdLimit::limit)
+                    .tag("service", serviceId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.upstream.concurrency.in-flight", limit, AimdLimit::inFlight)
+                    .tag("service", serviceId)
+                    .register(meterRegistry);
+        }
+
+        private static Counter rejected(MeterRegistry meterRegistry, String serviceId, String reason) {
+            return Counter.builder("gateway.upstream.rejected")
+                    .tag("service", serviceId)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    // Respuesta completa del primero, reutilizada por los GET agrupados
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+        SharedResponse {
+            HttpHeaders copy = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (HOP_BY_HOP_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    copy.put(name, List.copyOf(values));
+                }
+            });
+            headers = HttpHeaders.readOnlyHttpHeaders(copy);
+        }
+
+        Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setStatusCode(status);
+            response.getHeaders().putAll(headers);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+
+    // 5xx del servicio, para contarlo como fallo en el circuit breaker
+    private static final class UpstreamErrorException extends RuntimeException {
+
+        UpstreamErrorException(HttpStatusCode status) {
+            super("Upstream responded " + status.value(), null, false, false);
+        }
+    }
+}
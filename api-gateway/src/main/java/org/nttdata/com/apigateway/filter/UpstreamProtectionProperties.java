@@ -0,0 +1,48 @@
+package org.nttdata.com.apigateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Protección de los servicios detrás del gateway ({@link UpstreamProtectionFilter}), por service id
+ * (el host de la URI lb:// de la ruta generada por discovery). Los servicios que no aparecen no se tocan.
+ */
+@ConfigurationProperties("gateway.upstream-protection")
+public record UpstreamProtectionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue Map<String, Service> services) {
+
+    /**
+     * @param coalesce agrupar GET idénticos en curso (misma ruta y principal) en una sola llamada
+     */
+    public record Service(
+            @DefaultValue("true") boolean coalesce,
+            @DefaultValue Limit limit,
+            @DefaultValue CircuitBreaker circuitBreaker) {
+    }
+
+    /**
+     * Límite de concurrencia AIMD: sube de uno en uno mientras el servicio responde a tiempo y se
+     * multiplica por backoffRatio ante un error, un 5xx o una respuesta más lenta que dropLatency.
+     */
+    public record Limit(
+            @DefaultValue("20") int initial,
+            @DefaultValue("4") int min,
+            @DefaultValue("200") int max,
+            @DefaultValue("0.9") double backoffRatio,
+            @DefaultValue("2s") Duration dropLatency) {
+    }
+
+    public record CircuitBreaker(
+            @DefaultValue("50") float failureRateThreshold,
+            @DefaultValue("80") float slowCallRateThreshold,
+            @DefaultValue("3s") Duration slowCallDuration,
+            @DefaultValue("50") int slidingWindowSize,
+            @DefaultValue("20") int minimumCalls,
+            @DefaultValue("10s") Duration waitInOpen,
+            @DefaultValue("5") int halfOpenCalls) {
+    }
+}
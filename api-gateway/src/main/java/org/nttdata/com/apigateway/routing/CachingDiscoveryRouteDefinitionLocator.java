@@ -0,0 +1,102 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.client.discovery.event.ParentHeartbeatEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Definiciones de ruta por servicio descubierto, cacheadas mientras no cambie el conjunto de servicios.
+ *
+ * Sustituye al RouteRefreshListener del gateway (route-refresh-listener.enabled=false), que refresca todas
+ * las rutas en cada heartbeat del registro (cada 30 s con Eureka) aunque nada haya cambiado. Aquí un
+ * heartbeat solo consulta los servicios a la caché local del cliente de descubrimiento y pide el refresco
+ * si aparece o desaparece alguno. Los cambios de instancias de un mismo servicio no tocan las rutas
+ * (lb://servicio): los resuelve el balanceador con su propia lista de instancias.
+ */
+public class CachingDiscoveryRouteDefinitionLocator implements RouteDefinitionLocator, ApplicationListener<ApplicationEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDiscoveryRouteDefinitionLocator.class);
+
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final RouteDefinitionLocator delegate;
+    private final ApplicationEventPublisher publisher;
+
+    private volatile Set<String> services;
+    private volatile List<RouteDefinition> definitions;
+    // Una carga que termina después de un refresco no repone definiciones viejas
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingDiscoveryRouteDefinitionLocator(ReactiveDiscoveryClient discoveryClient,
+                                                  RouteDefinitionLocator delegate,
+                                                  ApplicationEventPublisher publisher) {
+        this.discoveryClient = discoveryClient;
+        this.delegate = delegate;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public Flux<RouteDefinition> getRouteDefinitions() {
+        return Flux.defer(() -> {
+            List<RouteDefinition> cached = definitions;
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+            long loading = generation.get();
+            return services()
+                    .flatMapMany(current -> delegate.getRouteDefinitions().collectList().doOnNext(loaded -> {
+                        if (generation.get() == loading) {
+                            services = current;
+                            definitions = List.copyOf(loaded);
+                        }
+                    }))
+                    .flatMapIterable(loaded -> loaded);
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ContextRefreshedEvent refreshed
+                && !WebServerApplicationContext.hasServerNamespace(refreshed.getApplicationContext(), "management")) {
+            refresh();
+        } else if (event instanceof RefreshScopeRefreshedEvent || event instanceof InstanceRegisteredEvent) {
+            refresh();
+        } else if (event instanceof HeartbeatEvent || event instanceof ParentHeartbeatEvent) {
+            services().subscribe(current -> {
+                if (!current.equals(services)) {
+                    logger.info("Servicios descubiertos: {} -> {}", services, current);
+                    refresh();
+                }
+            }, e -> logger.warn("No se pudo consultar el registro de servicios: {}", e.getMessage()));
+        }
+    }
+
+    private void refresh() {
+        generation.incrementAndGet();
+        definitions = null;
+        publisher.publishEvent(new RefreshRoutesEvent(this));
+    }
+
+    private Mono<Set<String>> services() {
+        return discoveryClient.getServices().collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,90 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RoutePredicateHandlerMapping que busca la ruta en una {@link RouteTable} en lugar de evaluar los
+ * predicados de todas las rutas una tras otra.
+ *
+ * La tabla se reconstruye cuando el RouteLocator termina de refrescar las rutas; si el refresco falla se
+ * mantiene la anterior. Al publicarse las rutas nuevas la tabla anterior se descarta en el hilo del evento:
+ * mientras se construye la nueva (o si su construcción falla) las peticiones usan la búsqueda lineal del
+ * gateway sobre las rutas ya publicadas, nunca la tabla antigua. Lo mismo hasta la primera construcción.
+ */
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedRoutePredicateHandlerMapping.class);
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+    // Cada refresco descarta las construcciones que siguen en curso de refrescos anteriores
+    private final AtomicLong generation = new AtomicLong();
+    private volatile RouteTable routeTable;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               RouteDefinitionLocator routeDefinitionLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RouteTable table = routeTable;
+        if (table == null) {
+            return super.lookupRoute(exchange);
+        }
+        return table.lookup(exchange).map(route -> {
+            validateRoute(route, exchange);
+            return route;
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        long current;
+        synchronized (this) {
+            current = generation.incrementAndGet();
+            routeTable = null;
+        }
+        Mono.zip(routeLocator.getRoutes().collectList(), routeDefinitionLocator.getRouteDefinitions().collectList())
+                .subscribe(loaded -> {
+                    RouteTable table = RouteTable.build(loaded.getT1(), loaded.getT2());
+                    if (publish(current, table)) {
+                        logger.info("Tabla de rutas reconstruida: {} rutas", loaded.getT1().size());
+                    }
+                }, e -> logger.warn("No se pudo reconstruir la tabla de rutas: {}", e.getMessage()));
+    }
+
+    // Solo la construcción del último refresco llega a publicarse
+    private synchronized boolean publish(long built, RouteTable table) {
+        if (generation.get() != built) {
+            return false;
+        }
+        routeTable = table;
+        return true;
+    }
+
+    RouteTable routeTable() {
+        return routeTable;
+    }
+}
@@ -0,0 +1,195 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Tabla de rutas inmutable indexada por prefijo de path (trie por segmentos).
+ *
+ * Cada ruta con un predicado Path se cuelga del nodo de la parte literal de sus patrones (hasta el primer
+ * segmento con *, ? o {variable}): /user-service/** cuelga de user-service y /api/{id}/x de api. Las rutas
+ * sin Path (o sin definición, p. ej. las del DSL Java) cuelgan de la raíz y son candidatas siempre.
+ *
+ * Una búsqueda recorre los segmentos de la petición reuniendo las candidatas de los nodos visitados y
+ * evalúa su predicado completo en el orden original de las rutas: el resultado es el mismo que el del
+ * recorrido lineal de RoutePredicateHandlerMapping, pero evaluando una o dos rutas en lugar de todas.
+ */
+public final class RouteTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteTable.class);
+
+    private static final int[] NONE = new int[0];
+
+    private final Route[] routes;
+    private final Node root;
+
+    private RouteTable(Route[] routes, Node root) {
+        this.routes = routes;
+        this.root = root;
+    }
+
+    /**
+     * @param routes      rutas ya ordenadas, tal como las devuelve el RouteLocator
+     * @param definitions definiciones de las que salen los prefijos (por id de ruta)
+     */
+    public static RouteTable build(List<Route> routes, Collection<RouteDefinition> definitions) {
+        Map<String, RouteDefinition> definitionsById = new HashMap<>();
+        definitions.forEach(definition -> definitionsById.putIfAbsent(definition.getId(), definition));
+
+        Builder root = new Builder();
+        for (int i = 0; i < routes.size(); i++) {
+            List<List<String>> prefixes = prefixes(definitionsById.get(routes.get(i).getId()));
+            if (prefixes == null) {
+                root.routes.add(i);
+                continue;
+            }
+            for (List<String> prefix : prefixes) {
+                Builder node = root;
+                for (String segment : prefix) {
+                    node = node.children.computeIfAbsent(segment, s -> new Builder());
+                }
+                if (!node.routes.contains(i)) {
+                    node.routes.add(i);
+                }
+            }
+        }
+        return new RouteTable(routes.toArray(Route[]::new), root.build());
+    }
+
+    public int size() {
+        return routes.length;
+    }
+
+    public Mono<Route> lookup(ServerWebExchange exchange) {
+        int[] candidates = candidates(exchange.getRequest().getPath().pathWithinApplication());
+        if (candidates.length == 0) {
+            return Mono.empty();
+        }
+        if (candidates.length == 1) {
+            return Mono.defer(() -> test(routes[candidates[0]], exchange));
+        }
+        return Flux.range(0, candidates.length)
+                .concatMap(i -> test(routes[candidates[i]], exchange))
+                .next();
+    }
+
+    // Índices de las rutas candidatas, en orden
+    int[] candidates(PathContainer path) {
+        Node node = root;
+        int[] found = node.routes;
+        int[] merged = null;
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch());
+            if (node == null) {
+                break;
+            }
+            if (node.routes.length > 0) {
+                if (found.length == 0) {
+                    found = node.routes;
+                } else {
+                    merged = merge(merged != null ? merged : found, node.routes);
+                    found = merged;
+                }
+            }
+        }
+        return found;
+    }
+
+    // Misma evaluación que RoutePredicateHandlerMapping.lookupRoute para una ruta
+    private static Mono<Route> test(Route route, ServerWebExchange exchange) {
+        exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, route.getId());
+        try {
+            return Mono.from(route.getPredicate().apply(exchange))
+                    .filter(Boolean::booleanValue)
+                    .map(matched -> route);
+        } catch (Exception e) {
+            logger.error("Error applying predicate for route: {}", route.getId(), e);
+            return Mono.empty();
+        }
+    }
+
+    // Prefijos literales de los patrones Path de la definición; null si la ruta no se puede indexar
+    static List<List<String>> prefixes(RouteDefinition definition) {
+        if (definition == null) {
+            return null;
+        }
+        PredicateDefinition path = definition.getPredicates().stream()
+                .filter(predicate -> "Path".equals(predicate.getName()))
+                .findFirst().orElse(null);
+        if (path == null) {
+            return null;
+        }
+        List<List<String>> prefixes = new ArrayList<>();
+        for (Map.Entry<String, String> arg : path.getArgs().entrySet()) {
+            String value = arg.getValue();
+            if (arg.getKey().startsWith("match") || "true".equals(value) || "false".equals(value)) {
+                continue; // matchTrailingSlash y similares
+            }
+            if (value == null || !value.startsWith("/")) {
+                return null;
+            }
+            prefixes.add(literalPrefix(value));
+        }
+        return prefixes.isEmpty() ? null : prefixes;
+    }
+
+    private static List<String> literalPrefix(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.substring(1).split("/", -1)) {
+            if (segment.isEmpty() || segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0
+                    || segment.indexOf('{') >= 0) {
+                break;
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                j++; // ruta colgada de dos prefijos del mismo camino
+            } else {
+                merged[k++] = a[i] < b[j] ? a[i++] : b[j++];
+            }
+        }
+        while (i < a.length) {
+            merged[k++] = a[i++];
+        }
+        while (j < b.length) {
+            merged[k++] = b[j++];
+        }
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
+    }
+
+    private record Node(Map<String, Node> children, int[] routes) {
+    }
+
+    private static final class Builder {
+        private final Map<String, Builder> children = new HashMap<>();
+        private final List<Integer> routes = new ArrayList<>();
+
+        Node build() {
+            Map<String, Node> built = new HashMap<>(children.size() * 2);
+            children.forEach((segment, child) -> built.put(segment, child.build()));
+            int[] indexes = routes.isEmpty() ? NONE : routes.stream().mapToInt(Integer::intValue).sorted().toArray();
+            return new Node(built.isEmpty() ? Map.of() : Map.copyOf(built), indexes);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.nttdata.com.apigateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Cache de tokens ya verificados: un token repetido se resuelve con un SHA-256 en lugar de
+ * parsear y verificar la firma RSA otra vez.
+ *
+ * La clave es el digest del token (el token no se guarda) y cada entrada caduca en el exp del
+ * token, con maxTtl como tope. Solo se guardan tokens que el delegado aceptó.
+ */
+public class CachingJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(ReactiveJwtDecoder delegate, long maxEntries, Duration maxTtl) {
+        this(delegate, maxEntries, maxTtl, Ticker.systemTicker(), Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(ReactiveJwtDecoder delegate, long maxEntries, Duration maxTtl, Ticker ticker, Clock clock) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.<String, Jwt>creating((key, jwt) -> ttl(jwt, maxTtl, clock)))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    public Cache<String, Jwt> cache() {
+        return cache;
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) {
+        String key = digest(token);
+        Jwt cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return delegate.decode(token).doOnNext(jwt -> cache.put(key, jwt));
+    }
+
+    private static Duration ttl(Jwt jwt, Duration maxTtl, Clock clock) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtl;
+        }
+        Duration untilExpiry = Duration.between(clock.instant(), expiresAt);
+        return untilExpiry.isNegative() ? Duration.ZERO : (untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry : maxTtl);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
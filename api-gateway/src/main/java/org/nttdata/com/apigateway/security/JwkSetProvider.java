@@ -0,0 +1,138 @@
+package org.nttdata.com.apigateway.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Claves de firma del emisor mantenidas en memoria.
+ *
+ * El JWK set se descarga al arrancar y se recarga periódicamente en segundo plano, de modo que la
+ * validación de un token nunca espera a la red salvo cuando llega un kid desconocido (rotación): en
+ * ese caso se fuerza una recarga, compartida entre peticiones concurrentes y limitada por
+ * minRefreshInterval. Si el emisor falla se conserva el último set válido; mientras no se haya
+ * descargado ninguno se usa el set fijado en configuración.
+ */
+public class JwkSetProvider implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwkSetProvider.class);
+
+    private final WebClient webClient;
+    private final URI jwkSetUri;
+    private final JwtProperties properties;
+    private final AtomicReference<JWKSet> current;
+    private final AtomicReference<Mono<JWKSet>> inFlight = new AtomicReference<>();
+    private final Disposable schedule;
+    private final Counter refreshed;
+    private final Counter failed;
+    private volatile long lastRefreshNanos;
+
+    public JwkSetProvider(WebClient webClient, URI jwkSetUri, JwtProperties properties, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.properties = properties;
+        this.current = new AtomicReference<>(pinned(properties.pinnedJwkSet()));
+        this.refreshed = Counter.builder("gateway.jwks.refresh").tag("outcome", "success").register(meterRegistry);
+        this.failed = Counter.builder("gateway.jwks.refresh").tag("outcome", "failure").register(meterRegistry);
+        this.lastRefreshNanos = System.nanoTime() - properties.minRefreshInterval().toNanos();
+
+        // Primera descarga inmediata y luego cada refreshInterval, sin bloquear el arranque
+        this.schedule = Flux.interval(Duration.ZERO, properties.refreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    // Fuente de claves para NimbusReactiveJwtDecoder
+    public Flux<JWK> keys(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        List<JWK> keys = selector.select(current.get());
+        if (!keys.isEmpty()) {
+            return Flux.fromIterable(keys);
+        }
+        if (System.nanoTime() - lastRefreshNanos < properties.minRefreshInterval().toNanos()) {
+            return Flux.empty();
+        }
+        return refresh().flatMapIterable(selector::select);
+    }
+
+    public JWKSet current() {
+        return current.get();
+    }
+
+    // Una sola descarga en curso; nunca falla: ante error devuelve el set vigente
+    Mono<JWKSet> refresh() {
+        Mono<JWKSet> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+        Mono<JWKSet> fetch = webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(properties.fetchTimeout())
+                .map(JwkSetProvider::parse)
+                .doOnNext(jwkSet -> {
+                    current.set(jwkSet);
+                    refreshed.increment();
+                })
+                .onErrorResume(error -> {
+                    failed.increment();
+                    logger.warn("No se pudo recargar el JWK set de {}: {}", jwkSetUri, error.toString());
+                    return Mono.just(current.get());
+                })
+                .doFinally(signal -> {
+                    lastRefreshNanos = System.nanoTime();
+                    inFlight.set(null);
+                })
+                .cache();
+        if (inFlight.compareAndSet(null, fetch)) {
+            return fetch;
+        }
+        running = inFlight.get();
+        return running != null ? running : Mono.just(current.get());
+    }
+
+    @Override
+    public void close() {
+        schedule.dispose();
+    }
+
+    private static JWKSet parse(String json) {
+        try {
+            return JWKSet.parse(json);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK set: " + e.getMessage(), e);
+        }
+    }
+
+    private static JWKSet pinned(Resource resource) {
+        if (resource == null) {
+            return new JWKSet();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return JWKSet.load(in);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot load pinned JWK set " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.nttdata.com.apigateway.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+/**
+ * Validación local de JWT en el gateway ({@link JwkSetProvider}, {@link CachingJwtDecoder}).
+ *
+ * @param issuer             emisor exigido en el claim iss (el de user-service)
+ * @param refreshInterval    recarga periódica del JWK set en segundo plano
+ * @param minRefreshInterval espera mínima entre recargas forzadas por un kid desconocido
+ * @param pinnedJwkSet       JWK set local que se usa mientras el emisor no responde (opcional)
+ * @param cacheMaxTtl        tope de vida de un token verificado en cache (además de su exp)
+ */
+@ConfigurationProperties("gateway.jwt")
+public record JwtProperties(
+        @DefaultValue("user-service") String issuer,
+        @DefaultValue("5m") Duration refreshInterval,
+        @DefaultValue("30s") Duration minRefreshInterval,
+        @DefaultValue("3s") Duration fetchTimeout,
+        Resource pinnedJwkSet,
+        @DefaultValue("10000") long cacheMaxEntries,
+        @DefaultValue("5m") Duration cacheMaxTtl) {
+}
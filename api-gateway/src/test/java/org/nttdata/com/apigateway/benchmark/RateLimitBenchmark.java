@@ -0,0 +1,105 @@
+package org.nttdata.com.apigateway.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nttdata.com.apigateway.filter.RateLimitFilter;
+import org.nttdata.com.apigateway.filter.RateLimitProperties;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Count;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.KeyType;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Rule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por petición de {@link RateLimitFilter} con las reglas por defecto del gateway: ruta sin
+ * reglas (referencia), un cliente con token, 10.000 clientes distintos (IP) y un cliente ya limitado
+ * que recibe 429. Con varios hilos: -Djmh.include="RateLimitBenchmark -t 4".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final GatewayFilterChain FORWARD = exchange -> Mono.empty();
+
+    private RateLimitFilter filter;
+    private ServerWebExchange unmatched;
+    private ServerWebExchange authenticated;
+    private ServerWebExchange[] anonymous;
+    private ServerWebExchange register;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = new RateLimitFilter(new RateLimitProperties(true, 100_000, Duration.ofMinutes(10), "", List.of(
+                new Rule("/user-service/api/users/register", List.of("POST"), KeyType.IP, 5, Duration.ofMinutes(1), 5, Count.ALL),
+                new Rule("/user-service/api/auth/login", List.of("POST"), KeyType.IP, 20, Duration.ofMinutes(1), 10,
+                        Count.FAILURES),
+                // Holgado para que el cliente medido no llegue al límite
+                new Rule("/user-service/**", List.of(), KeyType.PRINCIPAL_OR_IP, 1_000_000_000, Duration.ofSeconds(1),
+                        1_000_000_000, Count.ALL))),
+                new MockEnvironment(), new SimpleMeterRegistry());
+
+        unmatched = exchange("/other-service/api/items", "10.0.0.1", null);
+        authenticated = exchange("/user-service/api/auth/me", "10.0.0.1", "ana");
+        anonymous = new ServerWebExchange[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            anonymous[i] = exchange("/user-service/api/roles", "10.1." + (i / 256) + "." + (i % 256), null);
+        }
+        // Agota el bucket de registro de esta IP
+        register = MockServerWebExchange.from(MockServerHttpRequest.post("/user-service/api/users/register")
+                .remoteAddress(new InetSocketAddress("10.9.9.9", 50000)));
+        for (int i = 0; i < 5; i++) {
+            filter.filter(register.mutate().response(new MockServerHttpResponse()).build(), FORWARD).block();
+        }
+    }
+
+    @Benchmark
+    public void noMatchingRule() {
+        filter.filter(unmatched, FORWARD).block();
+    }
+
+    @Benchmark
+    public void principalAllowed() {
+        filter.filter(authenticated, FORWARD).block();
+    }
+
+    @Benchmark
+    public void manyClientsAllowed() {
+        int i = next;
+        next = i + 1 == CLIENTS ? 0 : i + 1;
+        filter.filter(anonymous[i], FORWARD).block();
+    }
+
+    // Una respuesta 429 escribe cabeceras: respuesta nueva por operación sobre la misma petición
+    @Benchmark
+    public ServerWebExchange limited() {
+        ServerWebExchange exchange = register.mutate().response(new MockServerHttpResponse()).build();
+        filter.filter(exchange, FORWARD).block();
+        return exchange;
+    }
+
+    private static ServerWebExchange exchange(String path, String ip, String subject) {
+        MockServerWebExchange.Builder builder = MockServerWebExchange.builder(MockServerHttpRequest.get(path)
+                .remoteAddress(new InetSocketAddress(ip, 50000)).build());
+        if (subject != null) {
+            builder.principal(new TestingAuthenticationToken(subject, null));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,80 @@
+package org.nttdata.com.apigateway.benchmark;
+
+import org.nttdata.com.apigateway.routing.RouteTable;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Coste por petición de encontrar la ruta con 10 y 500 servicios descubiertos (una ruta /servicio/**
+ * por servicio): recorrido lineal de los predicados (RoutePredicateHandlerMapping) frente a
+ * {@link RouteTable}. Las peticiones se reparten entre todos los servicios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "500"})
+    private int routeCount;
+
+    private List<Route> routes;
+    private RouteTable table;
+    private ServerWebExchange[] exchanges;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PathRoutePredicateFactory path = new PathRoutePredicateFactory();
+        routes = new ArrayList<>(routeCount);
+        List<RouteDefinition> definitions = new ArrayList<>(routeCount);
+        exchanges = new ServerWebExchange[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            String service = "service-" + i;
+            routes.add(Route.async().id(service).uri("lb://" + service)
+                    .asyncPredicate(path.applyAsync(new PathRoutePredicateFactory.Config()
+                            .setPatterns(List.of("/" + service + "/**"))))
+                    .build());
+            definitions.add(new RouteDefinition(service + "=lb://" + service + ",Path=/" + service + "/**"));
+            exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get("/" + service + "/api/items/42"));
+        }
+        table = RouteTable.build(routes, definitions);
+    }
+
+    // Lo que hace RoutePredicateHandlerMapping.lookupRoute
+    @Benchmark
+    public Route linearScan() {
+        ServerWebExchange exchange = nextExchange();
+        return Flux.fromIterable(routes)
+                .filterWhen(route -> {
+                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, route.getId());
+                    return route.getPredicate().apply(exchange);
+                })
+                .next().block();
+    }
+
+    @Benchmark
+    public Route routeTable() {
+        return table.lookup(nextExchange()).block();
+    }
+
+    private ServerWebExchange nextExchange() {
+        int i = next;
+        next = i + 1 == exchanges.length ? 0 : i + 1;
+        return exchanges[i];
+    }
+}
@@ -0,0 +1,53 @@
+package org.nttdata.com.apigateway.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false"
+})
+@AutoConfigureObservability
+class ManagementPortTests {
+
+    private static final int MANAGEMENT_PORT = freePort();
+
+    @DynamicPropertySource
+    static void managementPort(DynamicPropertyRegistry registry) {
+        registry.add("management.server.port", () -> MANAGEMENT_PORT);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void prometheusIsOpenOnlyOnTheManagementPort() {
+        client(MANAGEMENT_PORT).get().uri("/actuator/prometheus").exchange()
+                .expectStatus().isOk();
+        client(MANAGEMENT_PORT).get().uri("/actuator/metrics").exchange()
+                .expectStatus().isUnauthorized();
+        client(port).get().uri("/actuator/prometheus").exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private static WebTestClient client(int port) {
+        return WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.nttdata.com.apigateway.configuration;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+
+@SpringBootTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "gateway.rate-limit.enabled=false"
+})
+class SecurityConfigTests {
+
+    // user-service simulado: 200 a cualquier petición
+    private static final HttpServer userService = startUserService();
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.user-service[0].uri",
+                () -> "http://localhost:" + userService.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopUserService() {
+        userService.stop(0);
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToApplicationContext(context).apply(springSecurity()).configureClient().build();
+    }
+
+    @Test
+    void publicAuthEndpointsNeedNoTokenNorCsrfToken() {
+        client.post().uri("/user-service/api/auth/login").exchange().expectStatus().isOk();
+        client.post().uri("/user-service/api/auth/refresh").exchange().expectStatus().isOk();
+        client.post().uri("/user-service/api/users/register").exchange().expectStatus().isOk();
+        client.get().uri("/user-service/api/auth/jwks").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void publicPathsAreOpenOnlyForTheirMethod() {
+        client.get().uri("/user-service/api/users/register").exchange().expectStatus().isUnauthorized();
+        client.delete().uri("/user-service/api/auth/login").exchange().expectStatus().isUnauthorized();
+        client.post().uri("/user-service/api/auth/revoke").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void authenticatedWritesNeedNoCsrfTokenAndCreateNoSession() {
+        client.mutateWith(mockJwt())
+                .post().uri("/user-service/api/auth/revoke")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.SET_COOKIE);
+    }
+
+    private static HttpServer startUserService() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.nttdata.com.apigateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.nttdata.com.apigateway.filter.UpstreamProtectionProperties.Limit;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdLimitTests {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    private final AimdLimit limit = new AimdLimit(new Limit(4, 2, 10, 0.5, Duration.ofSeconds(1)));
+
+    @Test
+    void rejectsBeyondTheCurrentLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.cancel();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsAdditivelyWhileSaturatedAndFast() {
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire();
+        }
+        limit.release(FAST, false);
+        assertThat(limit.limit()).isEqualTo(5);
+
+        // Con poca ocupación no crece
+        for (int i = 0; i < 3; i++) {
+            limit.release(FAST, false);
+        }
+        limit.tryAcquire();
+        limit.release(FAST, false);
+        assertThat(limit.limit()).isEqualTo(6);
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnSlowOrFailedCalls() {
+        limit.tryAcquire();
+        limit.release(SLOW, false);
+        assertThat(limit.limit()).isEqualTo(2);
+
+        limit.tryAcquire();
+        limit.release(FAST, true);
+        assertThat(limit.limit()).isEqualTo(2);
+    }
+}
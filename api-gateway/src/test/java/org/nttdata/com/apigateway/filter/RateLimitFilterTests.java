@@ -0,0 +1,175 @@
+package org.nttdata.com.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Count;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.KeyType;
+import org.nttdata.com.apigateway.filter.RateLimitProperties.Rule;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+    private static final String REGISTER = "/user-service/api/users/register";
+    private static final String LOGIN = "/user-service/api/auth/login";
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @Test
+    void exhaustedBucketGets429WithRetryAfter() {
+        RateLimitFilter filter = filter(new Rule(REGISTER, List.of("POST"), KeyType.IP, 5, Duration.ofMinutes(1), 2,
+                Count.ALL));
+
+        assertThat(post(filter, REGISTER, "10.0.0.1", null).getResponse().getStatusCode()).isNull();
+        assertThat(post(filter, REGISTER, "10.0.0.1", null).getResponse().getStatusCode()).isNull();
+        MockServerWebExchange limited = post(filter, REGISTER, "10.0.0.1", null);
+
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // 5 por minuto: un token cada 12 s
+        assertThat(limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        assertThat(forwarded.get()).isEqualTo(2);
+
+        // Otra IP tiene su propio bucket; otros métodos no cuentan
+        assertThat(post(filter, REGISTER, "10.0.0.2", null).getResponse().getStatusCode()).isNull();
+        filter.filter(exchange(MockServerHttpRequest.get(REGISTER), "10.0.0.1", null), chain).block();
+        assertThat(forwarded.get()).isEqualTo(4);
+    }
+
+    @Test
+    void authenticatedClientsAreLimitedPerPrincipal() {
+        RateLimitFilter filter = filter(new Rule("/user-service/**", List.of(), KeyType.PRINCIPAL_OR_IP, 1,
+                Duration.ofSeconds(10), 1, Count.ALL));
+
+        post(filter, "/user-service/api/roles", "10.0.0.1", "ana");
+        post(filter, "/user-service/api/roles", "10.0.0.1", "luis");
+        MockServerWebExchange limited = post(filter, "/user-service/api/roles", "10.0.0.1", "ana");
+
+        assertThat(forwarded.get()).isEqualTo(2);
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void rulesAreReloadedWhenConfigurationChanges() {
+        RateLimitFilter filter = filter(new Rule(REGISTER, List.of(), KeyType.IP, 1, Duration.ofMinutes(1), 1, Count.ALL));
+        post(filter, REGISTER, "10.0.0.1", null);
+        assertThat(post(filter, REGISTER, "10.0.0.1", null).getResponse().getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        environment.setProperty("gateway.rate-limit.rules[0].path", REGISTER);
+        environment.setProperty("gateway.rate-limit.rules[0].key", "ip");
+        environment.setProperty("gateway.rate-limit.rules[0].permits", "100");
+        environment.setProperty("gateway.rate-limit.rules[0].burst", "100");
+        filter.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("gateway.rate-limit.rules[0].burst")));
+
+        assertThat(post(filter, REGISTER, "10.0.0.1", null).getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void forwardedForIsOnlyBelievedFromTrustedProxies() {
+        RateLimitFilter filter = filter(new Rule(REGISTER, List.of(), KeyType.IP, 1, Duration.ofMinutes(1), 1,
+                Count.ALL), "10\\.0\\.9\\.\\d+");
+
+        // Detrás del balanceador: cuenta la IP que él añadió, no lo que el cliente puso a la izquierda
+        assertThat(forwarded(filter, "10.0.9.1", "1.1.1.1, 203.0.113.7").getResponse().getStatusCode()).isNull();
+        assertThat(forwarded(filter, "10.0.9.2", "2.2.2.2, 203.0.113.7").getResponse().getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(forwarded(filter, "10.0.9.1", "203.0.113.8").getResponse().getStatusCode()).isNull();
+
+        // Conexión directa: la cabecera no se cree
+        assertThat(forwarded(filter, "198.51.100.1", "203.0.113.9").getResponse().getStatusCode()).isNull();
+        assertThat(forwarded(filter, "198.51.100.1", "203.0.113.10").getResponse().getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void failuresRuleOnlyChargesRejectedLogins() {
+        RateLimitFilter filter = filter(new Rule(LOGIN, List.of("POST"), KeyType.IP, 1, Duration.ofMinutes(1), 2,
+                Count.FAILURES));
+
+        // Logins correctos: no gastan tokens
+        for (int i = 0; i < 5; i++) {
+            assertThat(login(filter, HttpStatus.OK).getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        login(filter, HttpStatus.UNAUTHORIZED);
+        login(filter, HttpStatus.UNAUTHORIZED);
+        MockServerWebExchange limited = login(filter, HttpStatus.OK);
+
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(forwarded.get()).isEqualTo(7);
+    }
+
+    @Test
+    void bucketRefillsAtTheConfiguredRate() {
+        TokenBucketTable table = new TokenBucketTable(100, Duration.ofMinutes(1));
+
+        assertThat(table.tryAcquire("k", 100, 2, 1_000)).isZero();
+        assertThat(table.tryAcquire("k", 100, 2, 1_000)).isZero();
+        assertThat(table.tryAcquire("k", 100, 2, 1_000)).isEqualTo(100);
+        assertThat(table.tryAcquire("k", 100, 2, 1_050)).isEqualTo(50);
+        assertThat(table.tryAcquire("k", 100, 2, 1_100)).isZero();
+        assertThat(table.tryAcquire("other", 100, 2, 1_100)).isZero();
+    }
+
+    private RateLimitFilter filter(Rule rule) {
+        return filter(rule, "");
+    }
+
+    private RateLimitFilter filter(Rule rule, String trustedProxies) {
+        return new RateLimitFilter(new RateLimitProperties(true, 1000, Duration.ofMinutes(10), trustedProxies,
+                List.of(rule)), environment, new SimpleMeterRegistry());
+    }
+
+    private MockServerWebExchange forwarded(RateLimitFilter filter, String proxy, String forwardedFor) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post(REGISTER)
+                .header("X-Forwarded-For", forwardedFor), proxy, null);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    // Login que el servicio responde con el estado dado
+    private MockServerWebExchange login(RateLimitFilter filter, HttpStatus status) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post(LOGIN), "10.0.0.1", null);
+        filter.filter(exchange, forwarding -> {
+            forwarded.incrementAndGet();
+            forwarding.getResponse().setStatusCode(status);
+            return forwarding.getResponse().setComplete();
+        }).block();
+        return exchange;
+    }
+
+    private MockServerWebExchange post(RateLimitFilter filter, String path, String ip, String subject) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post(path), ip, subject);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String ip,
+                                                  String subject) {
+        MockServerWebExchange.Builder builder = MockServerWebExchange.builder(
+                request.remoteAddress(new InetSocketAddress(ip, 50000)).build());
+        if (subject != null) {
+            builder.principal(new TestingAuthenticationToken(subject, null));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,303 @@
+package org.nttdata.com.apigateway.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+
+@SpringBootTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "gateway.response-cache.ttl=1s",
+        "gateway.response-cache.stale-while-revalidate=1m"
+})
+class ResponseCacheFilterTests {
+
+    private static final UserServiceStub userService = new UserServiceStub();
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.user-service[0].uri", userService::uri);
+        registry.add("spring.cloud.discovery.client.simple.instances.other-service[0].uri", userService::uri);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        userService.stop();
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Tokens opacos de prueba: "<subject>-token"
+    @MockitoBean
+    private ReactiveJwtDecoder jwtDecoder;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToApplicationContext(context)
+                .apply(springSecurity())
+                .configureClient()
+                .responseTimeout(Duration.ofSeconds(10))
+                .build();
+        userService.delay = Duration.ZERO;
+        given(jwtDecoder.decode(anyString())).willAnswer(invocation -> {
+            String token = invocation.getArgument(0);
+            return Mono.just(Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .subject(token.substring(0, token.indexOf('-')))
+                    .claim("authorities", List.of("ROLE_ADMIN"))
+                    .build());
+        });
+    }
+
+    @Test
+    void repeatedReadIsServedFromCache() {
+        get("/user-service/api/roles/repeated", "ana")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Cache", "MISS")
+                .expectBody(String.class).isEqualTo("/api/roles/repeated v1");
+        get("/user-service/api/roles/repeated", "ana")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Cache", "HIT")
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1\"")
+                .expectBody(String.class).isEqualTo("/api/roles/repeated v1");
+
+        assertThat(userService.requests("/api/roles/repeated")).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.response.cache").tag("result", "hit").counter().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void meIsCachedPerSubject() {
+        get("/user-service/api/auth/me", "alice").expectHeader().valueEquals("X-Cache", "MISS");
+        get("/user-service/api/auth/me", "bob").expectHeader().valueEquals("X-Cache", "MISS");
+        get("/user-service/api/auth/me", "alice").expectHeader().valueEquals("X-Cache", "HIT");
+
+        assertThat(userService.requests("/api/auth/me")).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationHintEvictsTaggedEntriesAndIsNotForwarded() {
+        get("/user-service/api/roles/hinted", "ana").expectHeader().valueEquals("X-Cache", "MISS");
+        get("/user-service/api/roles/hinted", "ana").expectHeader().valueEquals("X-Cache", "HIT");
+
+        client.mutateWith(mockJwt().jwt(jwt -> jwt.subject("ana")))
+                .post().uri("/user-service/api/roles")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().doesNotExist("X-Cache-Invalidate");
+
+        get("/user-service/api/roles/hinted", "ana").expectHeader().valueEquals("X-Cache", "MISS");
+        assertThat(userService.requests("/api/roles/hinted")).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationHintFromAnotherRouteIsIgnoredAndNotForwarded() {
+        get("/user-service/api/roles/foreign", "ana").expectHeader().valueEquals("X-Cache", "MISS");
+
+        client.mutateWith(mockJwt().jwt(jwt -> jwt.subject("ana")))
+                .post().uri("/other-service/api/roles")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().doesNotExist("X-Cache-Invalidate");
+
+        get("/user-service/api/roles/foreign", "ana").expectHeader().valueEquals("X-Cache", "HIT");
+        assertThat(userService.requests("/api/roles/foreign")).isEqualTo(1);
+    }
+
+    @Test
+    void noStoreAndPrivateResponsesAreNotCached() {
+        for (int i = 0; i < 2; i++) {
+            get("/user-service/api/roles/no-store", "ana").expectStatus().isOk().expectHeader().doesNotExist("X-Cache");
+            get("/user-service/api/auth/me?private", "bob").expectStatus().isOk().expectHeader().doesNotExist("X-Cache");
+        }
+
+        assertThat(userService.requests("/api/roles/no-store")).isEqualTo(2);
+    }
+
+    @Test
+    void staleEntryIsRevalidatedWithTheTriggeringRequestsCredentials() throws InterruptedException {
+        bearer("/user-service/api/roles/shared", "ana-token").expectHeader().valueEquals("X-Cache", "MISS");
+        assertThat(userService.authorization("/api/roles/shared")).isEqualTo("Bearer ana-token");
+        Thread.sleep(1200);
+
+        // Misma entrada (mismas authorities), otro usuario: la revalidación lleva su token, no el de ana
+        bearer("/user-service/api/roles/shared", "bob-token").expectHeader().valueEquals("X-Cache", "STALE");
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (userService.requests("/api/roles/shared") < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(userService.requests("/api/roles/shared")).isEqualTo(2);
+        assertThat(userService.authorization("/api/roles/shared")).isEqualTo("Bearer bob-token");
+    }
+
+    @Test
+    void matchingIfNoneMatchGets304FromCache() {
+        get("/user-service/api/roles/conditional", "ana").expectStatus().isOk();
+
+        request("/user-service/api/roles/conditional", "ana")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("X-Cache", "HIT")
+                .expectBody().isEmpty();
+
+        assertThat(userService.requests("/api/roles/conditional")).isEqualTo(1);
+    }
+
+    @Test
+    void staleEntryIsServedWhileSlowServiceRevalidates() throws InterruptedException {
+        get("/user-service/api/roles/slow", "ana").expectHeader().valueEquals("X-Cache", "MISS");
+        Thread.sleep(1200);
+
+        // El servicio se ralentiza y cambia el recurso: la respuesta sigue saliendo de la cache
+        userService.delay = Duration.ofMillis(1500);
+        userService.bump("/api/roles/slow");
+        long start = System.nanoTime();
+        get("/user-service/api/roles/slow", "ana")
+                .expectHeader().valueEquals("X-Cache", "STALE")
+                .expectBody(String.class).isEqualTo("/api/roles/slow v1");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+
+        // La revalidación en segundo plano trae la versión nueva
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String body;
+        do {
+            Thread.sleep(100);
+            body = get("/user-service/api/roles/slow", "ana").expectBody(String.class).returnResult().getResponseBody();
+        } while (!"/api/roles/slow v2".equals(body) && System.nanoTime() < deadline);
+        assertThat(body).isEqualTo("/api/roles/slow v2");
+    }
+
+    private WebTestClient.ResponseSpec get(String uri, String subject) {
+        return request(uri, subject).exchange();
+    }
+
+    private WebTestClient.ResponseSpec bearer(String uri, String token) {
+        return client.get().uri(uri).headers(headers -> headers.setBearerAuth(token)).exchange();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> request(String uri, String subject) {
+        return client.mutateWith(mockJwt().jwt(jwt -> jwt.subject(subject).claim("authorities", "ROLE_ADMIN")))
+                .get().uri(uri);
+    }
+
+    /**
+     * user-service simulado: GET versionado con ETag/304 (no-store o private si el path o la query lo
+     * nombran), POST con pista de invalidación.
+     */
+    private static final class UserServiceStub {
+
+        private final HttpServer server;
+        private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> versions = new ConcurrentHashMap<>();
+        private final Map<String, String> authorizations = new ConcurrentHashMap<>();
+        private volatile Duration delay = Duration.ZERO;
+
+        UserServiceStub() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/", this::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        int requests(String path) {
+            return requests.getOrDefault(path, new AtomicInteger()).get();
+        }
+
+        String authorization(String path) {
+            return authorizations.get(path);
+        }
+
+        void bump(String path) {
+            versions.computeIfAbsent(path, p -> new AtomicInteger(1)).incrementAndGet();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("X-Cache-Invalidate", "roles");
+                exchange.sendResponseHeaders(201, -1);
+                exchange.close();
+                return;
+            }
+            authorizations.put(path, Objects.toString(exchange.getRequestHeaders().getFirst("Authorization"), ""));
+            requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            String uri = exchange.getRequestURI().toString();
+            if (uri.contains("no-store")) {
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache, no-store, max-age=0");
+            } else if (uri.contains("private")) {
+                exchange.getResponseHeaders().set("Cache-Control", "private, max-age=60");
+            }
+            int version = versions.computeIfAbsent(path, p -> new AtomicInteger(1)).get();
+            String etag = "\"v" + version + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = (path + " v" + version).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
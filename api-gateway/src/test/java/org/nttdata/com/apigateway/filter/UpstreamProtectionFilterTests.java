@@ -0,0 +1,185 @@
+package org.nttdata.com.apigateway.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+
+@SpringBootTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "gateway.upstream-protection.services.flaky-service.coalesce=false",
+        "gateway.upstream-protection.services.flaky-service.circuit-breaker.sliding-window-size=4",
+        "gateway.upstream-protection.services.flaky-service.circuit-breaker.minimum-calls=4",
+        "gateway.upstream-protection.services.flaky-service.circuit-breaker.wait-in-open=30s"
+})
+class UpstreamProtectionFilterTests {
+
+    private static final ServiceStub stub = new ServiceStub();
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.user-service[0].uri", stub::uri);
+        registry.add("spring.cloud.discovery.client.simple.instances.flaky-service[0].uri", stub::uri);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToApplicationContext(context)
+                .apply(springSecurity())
+                .configureClient()
+                .responseTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Test
+    void identicalConcurrentGetsShareOneUpstreamCall() throws Exception {
+        List<String> bodies = concurrently(5, () -> get("/user-service/api/users/slow", "ana"));
+
+        assertThat(stub.requests("/api/users/slow")).isEqualTo(1);
+        assertThat(bodies).containsOnly("/api/users/slow #1");
+        assertThat(meterRegistry.get("gateway.upstream.coalesced").tag("service", "user-service").counter().count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void differentPrincipalsAreNotCoalesced() throws Exception {
+        AtomicInteger subject = new AtomicInteger();
+        concurrently(2, () -> get("/user-service/api/users/per-user", "user" + subject.incrementAndGet()));
+
+        assertThat(stub.requests("/api/users/per-user")).isEqualTo(2);
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheService() {
+        for (int i = 0; i < 4; i++) {
+            request("/flaky-service/api/fail", "ana").exchange().expectStatus().isEqualTo(500);
+        }
+
+        request("/flaky-service/api/fail", "ana").exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "30");
+        assertThat(stub.requests("/api/fail")).isEqualTo(4);
+        assertThat(meterRegistry.get("gateway.upstream.rejected")
+                .tags("service", "flaky-service", "reason", "circuit_open").counter().count()).isEqualTo(1);
+    }
+
+    private String get(String uri, String subject) {
+        return request(uri, subject).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> request(String uri, String subject) {
+        return client.mutateWith(mockJwt().jwt(jwt -> jwt.subject(subject)))
+                .get().uri(uri);
+    }
+
+    private static List<String> concurrently(int count, Callable<String> call) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        }
+    }
+
+    /** Servicio simulado: /api/users/* tarda 1 s, /api/fail responde 500. */
+    private static final class ServiceStub {
+
+        private final HttpServer server;
+        private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+        ServiceStub() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/", this::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        int requests(String path) {
+            return requests.getOrDefault(path, new AtomicInteger()).get();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            int count = requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            if (path.equals("/api/fail")) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (path + " #" + count).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
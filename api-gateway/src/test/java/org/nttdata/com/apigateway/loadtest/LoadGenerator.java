@@ -0,0 +1,142 @@
+package org.nttdata.com.apigateway.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.nttdata.com.apigateway.loadtest.Workload.Operation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de tasa constante (modelo abierto): cada petición tiene una hora de inicio
+ * planificada y se lanza en su propio hilo virtual. La latencia se mide desde esa hora planificada,
+ * así que un servidor lento no reduce la carga ofrecida ni oculta la espera (coordinated omission).
+ */
+final class LoadGenerator {
+
+    // Microsegundos, hasta 1 minuto con 3 dígitos significativos
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client;
+    private final Workload workload;
+
+    LoadGenerator(HttpClient client, Workload workload) {
+        this.client = client;
+        this.workload = workload;
+    }
+
+    Results run(double ratePerSecond, Duration duration) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long total = (long) (ratePerSecond * duration.toNanos() / TimeUnit.SECONDS.toNanos(1));
+        Results results = new Results();
+
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = workload.next();
+                HttpRequest request = workload.request(operation);
+                requests.execute(() -> results.record(operation, intendedStart, send(request)));
+            }
+        }
+        results.elapsedNanos = System.nanoTime() - start;
+        return results;
+    }
+
+    // Código HTTP, o -1 si la petición no llegó a tener respuesta
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    static final class Results {
+
+        private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        private long elapsedNanos;
+
+        Results() {
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new OperationStats());
+            }
+        }
+
+        void record(Operation operation, long intendedStart, int status) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+            stats.get(operation).record(Math.min(micros, HIGHEST_TRACKABLE_MICROS), status);
+        }
+
+        void print(PrintStream out) {
+            long requests = stats.values().stream().mapToLong(s -> s.latency.getTotalCount()).sum();
+            double seconds = elapsedNanos / 1e9;
+            out.printf("%n%d requests in %.1f s (%.1f req/s)%n", requests, seconds, requests / seconds);
+            out.printf("%-10s %9s %8s %10s %10s %10s %10s  %s%n",
+                    "operation", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms", "error statuses");
+            stats.forEach((operation, s) -> {
+                if (s.latency.getTotalCount() == 0) {
+                    return;
+                }
+                out.printf("%-10s %9d %8d %10.2f %10.2f %10.2f %10.2f  %s%n",
+                        operation.name().toLowerCase(), s.latency.getTotalCount(), s.errors.sum(),
+                        millis(s.latency.getValueAtPercentile(50)),
+                        millis(s.latency.getValueAtPercentile(99)),
+                        millis(s.latency.getValueAtPercentile(99.9)),
+                        millis(s.latency.getMaxValue()),
+                        s.errorStatuses);
+            });
+        }
+
+        // Un .hgrm por operación (distribución de percentiles en ms, apta para HdrHistogram plotter)
+        void write(Path reportDir) throws IOException {
+            Files.createDirectories(reportDir);
+            for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+                Path file = reportDir.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                    entry.getValue().latency.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    private static final class OperationStats {
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final Map<Integer, LongAdder> errorStatuses = new ConcurrentHashMap<>();
+
+        void record(long micros, int status) {
+            latency.recordValue(micros);
+            if (status < 200 || status >= 400) {
+                errors.increment();
+                errorStatuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.nttdata.com.apigateway.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.nttdata.com.apigateway.ApiGatewayApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Prueba de carga extremo a extremo: cliente -> api-gateway (rutas por discovery + validación JWT)
+ * -> user-service.
+ *
+ * Levanta un emisor JWT local, user-service como proceso hijo y el gateway en este proceso con un
+ * discovery client simple apuntando a user-service. Tras el calentamiento lanza la mezcla de
+ * operaciones a tasa constante e imprime p50/p99/p999 y errores por operación; los histogramas
+ * completos quedan en loadtest.reportDir.
+ *
+ * Propiedades de sistema: loadtest.rate (req/s), loadtest.duration y loadtest.warmup (ISO-8601),
+ * loadtest.mix, loadtest.userServiceJar, loadtest.reportDir. Ver el perfil "loadtest" del pom.
+ */
+public final class LoadTestHarness {
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+        String mix = System.getProperty("loadtest.mix", "login:10,me:50,list:30,register:10");
+        Path userServiceJar = Path.of(System.getProperty("loadtest.userServiceJar",
+                "../user-service/target/user-service-0.0.1-SNAPSHOT.jar"));
+        Path reportDir = Path.of(System.getProperty("loadtest.reportDir", "target/loadtest"));
+
+        try (LocalIssuer issuer = new LocalIssuer(reportDir);
+             UserServiceProcess userService = UserServiceProcess.start(userServiceJar, issuer, reportDir);
+             ConfigurableApplicationContext gateway = startGateway(userService.baseUri(), issuer.jwkSetUri())) {
+
+            URI gatewayUri = URI.create("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port"));
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+
+            Workload workload = new Workload(gatewayUri, mix);
+            workload.adminToken(adminToken(client, workload));
+            LoadGenerator generator = new LoadGenerator(client, workload);
+
+            System.out.printf("Warm-up: %s at %.0f req/s%n", warmup, rate);
+            generator.run(rate, warmup);
+
+            System.out.printf("Measuring: %s at %.0f req/s, mix %s%n", duration, rate, mix);
+            LoadGenerator.Results results = generator.run(rate, duration);
+            results.print(System.out);
+            results.write(reportDir);
+            System.out.println("Histograms written to " + reportDir.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startGateway(URI userService, String jwkSetUri) {
+        return new SpringApplicationBuilder(ApiGatewayApplication.class)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.config.import=",
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        // Todo el tráfico sale de una IP: el límite de registro/login lo cortaría
+                        "--gateway.rate-limit.enabled=false",
+                        "--spring.cloud.discovery.client.simple.instances.user-service[0].uri=" + userService,
+                        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + jwkSetUri,
+                        "--logging.level.root=WARN");
+    }
+
+    // Token de admin para las operaciones autenticadas (/me, listado)
+    private static String adminToken(HttpClient client, Workload workload) throws Exception {
+        HttpResponse<String> response = client.send(workload.login("admin", "admin123"),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Admin login through the gateway failed: "
+                    + response.statusCode() + " " + response.body());
+        }
+        JsonNode body = new ObjectMapper().readTree(response.body());
+        return body.get("accessToken").asText();
+    }
+}
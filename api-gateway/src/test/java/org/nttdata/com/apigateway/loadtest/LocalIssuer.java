@@ -0,0 +1,76 @@
+package org.nttdata.com.apigateway.loadtest;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+
+/**
+ * Emisor JWT local para la prueba de carga: genera el par RSA con el que firma user-service
+ * (PEM en disco) y publica el JWK set que valida el gateway desde un HttpServer del JDK.
+ */
+final class LocalIssuer implements AutoCloseable {
+
+    private final Path publicKeyPem;
+    private final Path privateKeyPem;
+    private final HttpServer server;
+
+    LocalIssuer(Path workDir) throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048)
+                .keyUse(KeyUse.SIGNATURE)
+                .keyIDFromThumbprint(true)
+                .generate();
+
+        Files.createDirectories(workDir);
+        this.publicKeyPem = writePem(workDir.resolve("jwt-public.pem"), "PUBLIC KEY",
+                key.toRSAPublicKey().getEncoded());
+        this.privateKeyPem = writePem(workDir.resolve("jwt-private.pem"), "PRIVATE KEY",
+                key.toRSAPrivateKey().getEncoded());
+
+        byte[] jwkSet = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/jwks", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwkSet.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(jwkSet);
+            }
+        });
+        server.start();
+    }
+
+    String jwkSetUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    Path publicKeyPem() {
+        return publicKeyPem;
+    }
+
+    Path privateKeyPem() {
+        return privateKeyPem;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static Path writePem(Path file, String type, byte[] der) throws IOException {
+        String body = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der);
+        Files.writeString(file, "-----BEGIN " + type + "-----\n" + body + "\n-----END " + type + "-----\n");
+        return file;
+    }
+}
@@ -0,0 +1,98 @@
+package org.nttdata.com.apigateway.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * user-service en un proceso hijo (java -jar del artefacto empaquetado) firmando con la clave
+ * del {@link LocalIssuer}. La salida queda en user-service.log dentro del directorio de reportes.
+ */
+final class UserServiceProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+    private final URI baseUri;
+
+    private UserServiceProcess(Process process, int port) {
+        this.process = process;
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    static UserServiceProcess start(Path jar, LocalIssuer issuer, Path workDir) throws Exception {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("user-service jar not found: " + jar
+                    + " (run 'mvn -DskipTests package' in user-service first)");
+        }
+        int port = freePort();
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(List.of(
+                java, "-jar", jar.toString(),
+                "--server.port=" + port,
+                "--management.server.port=0",
+                "--app.security.jwt.public-key-location=file:" + issuer.publicKeyPem(),
+                "--app.security.jwt.private-key-location=file:" + issuer.privateKeyPem(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN"))
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("user-service.log").toFile())
+                .start();
+
+        UserServiceProcess userService = new UserServiceProcess(process, port);
+        try {
+            userService.awaitReady();
+        } catch (Exception e) {
+            userService.close();
+            throw e;
+        }
+        return userService;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    private void awaitReady() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(baseUri.resolve("/api/auth/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("user-service exited with code " + process.exitValue());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Todavía arrancando
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("user-service not ready after " + STARTUP_TIMEOUT);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
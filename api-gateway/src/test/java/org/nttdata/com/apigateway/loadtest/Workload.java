@@ -0,0 +1,112 @@
+package org.nttdata.com.apigateway.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mezcla de operaciones a través del gateway, con pesos relativos ("login:10,me:50,list:30,register:10").
+ */
+final class Workload {
+
+    enum Operation { LOGIN, ME, LIST, REGISTER }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Usuarios semilla de user-service (DataInitializer)
+    private static final String[][] SEED_CREDENTIALS = {
+            { "admin", "admin123" },
+            { "tecnico", "tecnico123" },
+            { "supervisor", "super123" },
+            { "viewer", "viewer123" },
+            { "usuario", "user123" }
+    };
+
+    private final URI gateway;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registrations = new AtomicLong();
+    private volatile String adminToken;
+
+    Workload(URI gateway, String mix) {
+        this.gateway = gateway;
+        Map<Operation, Integer> weights = parseMix(mix);
+        this.operations = weights.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Workload mix has no weight: " + mix);
+        }
+    }
+
+    void adminToken(String adminToken) {
+        this.adminToken = adminToken;
+    }
+
+    Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case LOGIN -> {
+                String[] credentials = SEED_CREDENTIALS[ThreadLocalRandom.current().nextInt(SEED_CREDENTIALS.length)];
+                yield login(credentials[0], credentials[1]);
+            }
+            case ME -> authorized("/user-service/api/auth/me").GET().build();
+            case LIST -> authorized("/user-service/api/users?limit=50").GET().build();
+            case REGISTER -> {
+                String username = "load-" + runId + "-" + registrations.incrementAndGet();
+                yield json("/user-service/api/users/register", """
+                        {"username":"%s","password":"load123","email":"%s@load.local","firstName":"Load","lastName":"Test"}"""
+                        .formatted(username, username));
+            }
+        };
+    }
+
+    HttpRequest login(String username, String password) {
+        return json("/user-service/api/auth/login",
+                "{\"username\":\"%s\",\"password\":\"%s\"}".formatted(username, password));
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(gateway.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + adminToken);
+    }
+
+    private HttpRequest json(String path, String body) {
+        return HttpRequest.newBuilder(gateway.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid workload entry (expected op:weight): " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
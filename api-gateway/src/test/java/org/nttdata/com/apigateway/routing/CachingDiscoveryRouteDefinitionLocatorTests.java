@@ -0,0 +1,84 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.gateway.discovery.DiscoveryClientRouteDefinitionLocator;
+import org.springframework.cloud.gateway.discovery.DiscoveryLocatorProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingDiscoveryRouteDefinitionLocatorTests {
+
+    private final Map<String, List<ServiceInstance>> registry = new ConcurrentHashMap<>();
+    private final ReactiveDiscoveryClient discoveryClient = new ReactiveDiscoveryClient() {
+        @Override
+        public String description() {
+            return "stub";
+        }
+
+        @Override
+        public Flux<ServiceInstance> getInstances(String serviceId) {
+            return Flux.fromIterable(registry.getOrDefault(serviceId, List.of()));
+        }
+
+        @Override
+        public Flux<String> getServices() {
+            return Flux.fromIterable(registry.keySet());
+        }
+    };
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private final CachingDiscoveryRouteDefinitionLocator locator;
+
+    CachingDiscoveryRouteDefinitionLocatorTests() {
+        DiscoveryLocatorProperties properties = new DiscoveryLocatorProperties();
+        properties.setRouteIdPrefix("");
+        RouteDefinitionLocator discovery = new DiscoveryClientRouteDefinitionLocator(discoveryClient, properties);
+        RouteDefinitionLocator counting = () -> Flux.defer(() -> {
+            loads.incrementAndGet();
+            return discovery.getRouteDefinitions();
+        });
+        locator = new CachingDiscoveryRouteDefinitionLocator(discoveryClient, counting, events::add);
+        register("user-service", 8085);
+    }
+
+    @Test
+    void definitionsAreLoadedOnceUntilTheServicesChange() {
+        assertThat(uris()).containsExactly("lb://user-service");
+        assertThat(uris()).containsExactly("lb://user-service");
+        assertThat(loads).hasValue(1);
+
+        // Nueva instancia de un servicio conocido: las rutas no cambian
+        register("user-service", 8086);
+        locator.onApplicationEvent(new HeartbeatEvent(this, 1));
+        assertThat(events).isEmpty();
+
+        register("cuentas", 8090);
+        locator.onApplicationEvent(new HeartbeatEvent(this, 2));
+        assertThat(events).singleElement().isInstanceOf(RefreshRoutesEvent.class);
+        assertThat(uris()).containsExactlyInAnyOrder("lb://user-service", "lb://cuentas");
+        assertThat(loads).hasValue(2);
+    }
+
+    private List<String> uris() {
+        return locator.getRouteDefinitions().map(definition -> definition.getUri().toString()).collectList().block();
+    }
+
+    private void register(String serviceId, int port) {
+        registry.computeIfAbsent(serviceId, id -> new CopyOnWriteArrayList<>())
+                .add(new DefaultServiceInstance(serviceId + "-" + port, serviceId, "localhost", port, false));
+    }
+}
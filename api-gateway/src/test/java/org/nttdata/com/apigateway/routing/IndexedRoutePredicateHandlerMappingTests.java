@@ -0,0 +1,97 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedRoutePredicateHandlerMappingTests {
+
+    private volatile List<Route> routes;
+    private volatile Flux<RouteDefinition> definitions;
+
+    private final IndexedRoutePredicateHandlerMapping mapping = new IndexedRoutePredicateHandlerMapping(
+            new FilteringWebHandler(List.of()), () -> Flux.fromIterable(routes), () -> definitions,
+            new GlobalCorsProperties(), new MockEnvironment());
+
+    @Test
+    void requestsNeverSeeTheTableOfThePreviousRoutes() {
+        publish("v1");
+        RouteTable v1 = mapping.routeTable();
+        assertThat(v1).isNotNull();
+        assertThat(lookup()).isEqualTo("lb://v1");
+
+        // Las rutas nuevas ya están publicadas pero sus definiciones todavía no han llegado
+        Sinks.One<RouteDefinition> pending = Sinks.one();
+        routes = List.of(route("v2"));
+        definitions = pending.asMono().flux();
+        mapping.onApplicationEvent(new RefreshRoutesResultEvent(this));
+
+        assertThat(mapping.routeTable()).isNull();
+        assertThat(lookup()).isEqualTo("lb://v2");
+
+        pending.tryEmitValue(definition("v2"));
+        assertThat(mapping.routeTable()).isNotNull().isNotSameAs(v1);
+        assertThat(lookup()).isEqualTo("lb://v2");
+    }
+
+    @Test
+    void aSlowBuildDoesNotOverwriteTheTableOfALaterRefresh() {
+        Sinks.One<RouteDefinition> slow = Sinks.one();
+        routes = List.of(route("v1"));
+        definitions = slow.asMono().flux();
+        mapping.onApplicationEvent(new RefreshRoutesResultEvent(this));
+
+        publish("v2");
+        RouteTable v2 = mapping.routeTable();
+        slow.tryEmitValue(definition("v1"));
+
+        assertThat(mapping.routeTable()).isSameAs(v2);
+        assertThat(lookup()).isEqualTo("lb://v2");
+    }
+
+    @Test
+    void aFailedRefreshKeepsTheCurrentTable() {
+        publish("v1");
+        RouteTable v1 = mapping.routeTable();
+
+        mapping.onApplicationEvent(new RefreshRoutesResultEvent(this, new IllegalStateException("discovery")));
+
+        assertThat(mapping.routeTable()).isSameAs(v1);
+    }
+
+    private void publish(String id) {
+        routes = List.of(route(id));
+        definitions = Flux.just(definition(id));
+        mapping.onApplicationEvent(new RefreshRoutesResultEvent(this));
+    }
+
+    private String lookup() {
+        Route route = mapping.lookupRoute(MockServerWebExchange.from(MockServerHttpRequest.get("/cuentas/1")))
+                .block();
+        return route == null ? null : route.getUri().toString();
+    }
+
+    private static RouteDefinition definition(String id) {
+        return new RouteDefinition(id + "=lb://" + id + ",Path=/cuentas/**");
+    }
+
+    private static Route route(String id) {
+        return Route.async().id(id).uri("lb://" + id)
+                .asyncPredicate(new PathRoutePredicateFactory().applyAsync(
+                        new PathRoutePredicateFactory.Config().setPatterns(List.of("/cuentas/**"))))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package org.nttdata.com.apigateway.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.predicate.HeaderRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTableTests {
+
+    private static final PathRoutePredicateFactory PATH = new PathRoutePredicateFactory();
+
+    private final List<Route> routes = List.of(
+            route("canary", -1, new HeaderRoutePredicateFactory().applyAsync(
+                    new HeaderRoutePredicateFactory.Config().setHeader("X-Canary"))),
+            route("auth", 0, path("/user-service/api/auth/**")),
+            route("user-service", 0, path("/user-service/**")),
+            route("cuentas", 0, path("/cuentas/**")),
+            route("detalle", 0, path("/api/{id}/detalle")),
+            // Ruta del DSL Java: sin definición, siempre candidata
+            route("prestamos", 0, path("/prestamos/**")));
+
+    private final List<RouteDefinition> definitions = List.of(
+            new RouteDefinition("canary=lb://canary,Header=X-Canary"),
+            new RouteDefinition("auth=lb://user-service,Path=/user-service/api/auth/**"),
+            new RouteDefinition("user-service=lb://user-service,Path=/user-service/**"),
+            new RouteDefinition("cuentas=lb://cuentas,Path=/cuentas/**"),
+            new RouteDefinition("detalle=lb://detalle,Path=/api/{id}/detalle"));
+
+    private final RouteTable table = RouteTable.build(routes, definitions);
+
+    @Test
+    void findsTheSameRouteAsTheLinearScan() {
+        assertRoute(get("/user-service/api/auth/login"), "auth");
+        assertRoute(get("/user-service/api/users"), "user-service");
+        assertRoute(get("/user-service"), "user-service");
+        assertRoute(get("/cuentas/1"), "cuentas");
+        assertRoute(get("/api/7/detalle"), "detalle");
+        assertRoute(get("/prestamos/9"), "prestamos");
+        assertRoute(get("/nada"), null);
+        assertRoute(MockServerWebExchange.from(MockServerHttpRequest.get("/cuentas/1").header("X-Canary", "1")),
+                "canary");
+    }
+
+    @Test
+    void onlyRoutesUnderThePathPrefixAreCandidates() {
+        assertThat(table.candidates(get("/cuentas/1").getRequest().getPath().pathWithinApplication()))
+                .containsExactly(0, 3, 5);
+        assertThat(table.candidates(get("/user-service/api/auth/login").getRequest().getPath().pathWithinApplication()))
+                .containsExactly(0, 1, 2, 5);
+        assertThat(table.candidates(get("/nada").getRequest().getPath().pathWithinApplication()))
+                .containsExactly(0, 5);
+    }
+
+    @Test
+    void routesWithoutALiteralPathPrefixAreNotIndexed() {
+        RouteDefinition twoPatterns = new RouteDefinition();
+        twoPatterns.setPredicates(List.of(new PredicateDefinition("Path=/a/b/**,/c/{id}")));
+        assertThat(RouteTable.prefixes(twoPatterns)).containsExactly(List.of("a", "b"), List.of("c"));
+        assertThat(RouteTable.prefixes(new RouteDefinition("a=lb://a,Path=/**"))).containsExactly(List.of());
+        assertThat(RouteTable.prefixes(new RouteDefinition("a=lb://a,Method=GET"))).isNull();
+        assertThat(RouteTable.prefixes(null)).isNull();
+    }
+
+    private void assertRoute(ServerWebExchange exchange, String expected) {
+        Route indexed = table.lookup(exchange).block();
+        Route linear = Flux.fromIterable(routes)
+                .filterWhen(route -> route.getPredicate().apply(exchange))
+                .next().block();
+
+        assertThat(indexed).isSameAs(linear);
+        assertThat(indexed == null ? null : indexed.getId()).isEqualTo(expected);
+    }
+
+    private static ServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private static AsyncPredicate<ServerWebExchange> path(String pattern) {
+        return PATH.applyAsync(new PathRoutePredicateFactory.Config().setPatterns(List.of(pattern)));
+    }
+
+    private static Route route(String id, int order, AsyncPredicate<ServerWebExchange> predicate) {
+        return Route.async().id(id).uri("lb://" + id).order(order).asyncPredicate(predicate).build();
+    }
+}
@@ -0,0 +1,269 @@
+package org.nttdata.com.apigateway.security;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nttdata.com.apigateway.configuration.JwtDecoderConfig;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import org.springframework.security.oauth2.server.resource.web.server.BearerTokenServerAuthenticationEntryPoint;
+import org.springframework.security.oauth2.server.resource.web.server.authentication.ServerBearerTokenAuthenticationConverter;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtDecoderTests {
+
+    private static final String ISSUER = "user-service";
+
+    private LocalIssuer issuer;
+    private JwkSetProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        issuer = new LocalIssuer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.close();
+        }
+        issuer.close();
+    }
+
+    @Test
+    void keysArePrefetchedSoFirstTokenDoesNotWaitForIssuer() throws Exception {
+        provider = provider(issuer.jwkSetUri(), null);
+        awaitFetches(1);
+
+        Jwt jwt = decoder(provider).decode(issuer.token("ana", Duration.ofMinutes(5))).block();
+
+        assertThat(jwt.getSubject()).isEqualTo("ana");
+        assertThat(issuer.fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rotatedKeyTriggersSingleRefresh() throws Exception {
+        provider = provider(issuer.jwkSetUri(), null);
+        awaitFetches(1);
+
+        issuer.rotate();
+        Jwt jwt = decoder(provider).decode(issuer.token("ana", Duration.ofMinutes(5))).block();
+
+        assertThat(jwt.getSubject()).isEqualTo("ana");
+        assertThat(issuer.fetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void lastGoodKeysSurviveIssuerOutage() throws Exception {
+        provider = provider(issuer.jwkSetUri(), null);
+        awaitFetches(1);
+        String token = issuer.token("ana", Duration.ofMinutes(5));
+
+        issuer.failing = true;
+        provider.refresh().block();
+
+        assertThat(decoder(provider).decode(token).block().getSubject()).isEqualTo("ana");
+    }
+
+    @Test
+    void pinnedKeysAreUsedWhileIssuerIsUnreachable() throws Exception {
+        Resource pinned = new ByteArrayResource(issuer.jwkSet().toString().getBytes(StandardCharsets.UTF_8));
+        String token = issuer.token("ana", Duration.ofMinutes(5));
+        URI unreachable = issuer.jwkSetUri();
+        issuer.close();
+
+        provider = provider(unreachable, pinned);
+
+        assertThat(decoder(provider).decode(token).block().getSubject()).isEqualTo("ana");
+    }
+
+    @Test
+    void verifiedTokensAreCachedUntilTheyExpire() throws Exception {
+        AtomicInteger verifications = new AtomicInteger();
+        provider = provider(issuer.jwkSetUri(), null);
+        ReactiveJwtDecoder verifier = JwtDecoderConfig.verifier(provider, ISSUER);
+        ReactiveJwtDecoder counting = token -> {
+            verifications.incrementAndGet();
+            return verifier.decode(token);
+        };
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        CachingJwtDecoder decoder = new CachingJwtDecoder(counting, 100, Duration.ofMinutes(5), ticker,
+                Clock.systemUTC());
+        String token = issuer.token("ana", Duration.ofSeconds(60));
+
+        decoder.decode(token).block();
+        decoder.decode(token).block();
+        assertThat(verifications.get()).isEqualTo(1);
+
+        // El exp del token manda sobre el tope de la cache
+        nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+        decoder.decode(token).block();
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() throws Exception {
+        provider = provider(issuer.jwkSetUri(), null);
+        CachingJwtDecoder decoder = decoder(provider);
+        String forged = new LocalIssuer().token("mallory", Duration.ofMinutes(5));
+
+        assertThatThrownBy(() -> decoder.decode(forged).block()).isInstanceOf(RuntimeException.class);
+        assertThat(decoder.cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void onlyAccessTokensOfTheConfiguredIssuerAreAccepted() throws Exception {
+        provider = provider(issuer.jwkSetUri(), null);
+        CachingJwtDecoder decoder = decoder(provider);
+        AuthenticationWebFilter bearer = new AuthenticationWebFilter(new JwtReactiveAuthenticationManager(decoder));
+        bearer.setServerAuthenticationConverter(new ServerBearerTokenAuthenticationConverter());
+        bearer.setAuthenticationFailureHandler(
+                new ServerAuthenticationEntryPointFailureHandler(new BearerTokenServerAuthenticationEntryPoint()));
+        WebTestClient client = WebTestClient
+                .bindToRouterFunction(RouterFunctions.route(RequestPredicates.GET("/me"),
+                        request -> ServerResponse.ok().build()))
+                .webFilter(bearer)
+                .build();
+
+        String access = issuer.token("ana", Duration.ofMinutes(5));
+        // Refresh token: misma clave y vida de horas, pero no es una credencial para las rutas
+        String refresh = issuer.token("ana", Duration.ofHours(8), ISSUER, "refresh");
+        String foreign = issuer.token("ana", Duration.ofMinutes(5), "otro-emisor", "access");
+
+        client.get().uri("/me").headers(h -> h.setBearerAuth(access)).exchange().expectStatus().isOk();
+        client.get().uri("/me").headers(h -> h.setBearerAuth(refresh)).exchange().expectStatus().isUnauthorized();
+        client.get().uri("/me").headers(h -> h.setBearerAuth(foreign)).exchange().expectStatus().isUnauthorized();
+        assertThat(decoder.cache().estimatedSize()).isEqualTo(1);
+    }
+
+    private JwkSetProvider provider(URI jwkSetUri, Resource pinned) {
+        JwtProperties properties = new JwtProperties(ISSUER, Duration.ofMinutes(5), Duration.ZERO, Duration.ofSeconds(2),
+                pinned, 100, Duration.ofMinutes(5));
+        return new JwkSetProvider(WebClient.create(), jwkSetUri, properties, new SimpleMeterRegistry());
+    }
+
+    private static CachingJwtDecoder decoder(JwkSetProvider provider) {
+        return new CachingJwtDecoder(JwtDecoderConfig.verifier(provider, ISSUER), 100, Duration.ofMinutes(5));
+    }
+
+    private void awaitFetches(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (issuer.fetches.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(issuer.fetches.get()).isEqualTo(expected);
+        // La descarga termina de publicarse (set vigente, fin de la recarga en curso) tras responder
+        Thread.sleep(50);
+    }
+
+    /** Emisor local: firma tokens RS256 y publica su JWK set; puede rotar la clave o fallar. */
+    private static final class LocalIssuer implements AutoCloseable {
+
+        private final HttpServer server;
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile RSAKey key = generate();
+        private volatile boolean failing;
+
+        LocalIssuer() throws Exception {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/jwks", exchange -> {
+                fetches.incrementAndGet();
+                if (failing) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = jwkSet().toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        URI jwkSetUri() {
+            return URI.create("http://localhost:" + server.getAddress().getPort() + "/jwks");
+        }
+
+        JWKSet jwkSet() {
+            return new JWKSet(key.toPublicJWK());
+        }
+
+        void rotate() {
+            key = generate();
+        }
+
+        String token(String subject, Duration ttl) throws Exception {
+            return token(subject, ttl, ISSUER, "access");
+        }
+
+        String token(String subject, Duration ttl, String iss, String tokenUse) throws Exception {
+            Instant now = Instant.now();
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .issuer(iss)
+                    .claim("token_use", tokenUse)
+                    .subject(subject)
+                    .issueTime(Date.from(now))
+                    .expirationTime(Date.from(now.plus(ttl)))
+                    .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                    claims);
+            jwt.sign(new RSASSASigner(key));
+            return jwt.serialize();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+
+        private static RSAKey generate() {
+            try {
+                return new RSAKeyGenerator(2048).keyUse(KeyUse.SIGNATURE).keyIDFromThumbprint(true).generate();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.nttdata.com.configserver.snapshot;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SnapshotProperties.class)
+@ConditionalOnProperty(name = "config.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class SnapshotConfig {
+
+    // static: los post-procesadores se crean antes que el resto de beans
+    @Bean
+    static SnapshotRepositoryPostProcessor snapshotRepositoryPostProcessor(ObjectProvider<SnapshotProperties> properties) {
+        return new SnapshotRepositoryPostProcessor(properties);
+    }
+
+    // ETag (hash del cuerpo) y 304 ante If-None-Match: el cuerpo sale de la foto, así que el ETag
+    // solo cambia cuando cambia la configuración. Débil: Tomcat no comprime respuestas con ETag fuerte
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,189 @@
+package org.nttdata.com.configserver.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentException;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sirve cada application/profile/label desde una foto en memoria en lugar de consultar el backend
+ * (fetch de git y render) en cada petición.
+ *
+ * La primera petición de una clave espera la carga (hasta fetchTimeout); después las fotos se
+ * recargan en segundo plano cada refreshInterval, una carga por clave como máximo. Si el backend
+ * falla o no responde se sigue sirviendo la última foto buena.
+ */
+public class SnapshotEnvironmentRepository implements EnvironmentRepository, SearchPathLocator, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotEnvironmentRepository.class);
+
+    private final EnvironmentRepository delegate;
+    private final SnapshotProperties properties;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService loader;
+    private final ScheduledExecutorService scheduler;
+
+    public SnapshotEnvironmentRepository(EnvironmentRepository delegate, SnapshotProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loader = Executors.newFixedThreadPool(properties.threads(), runnable -> {
+            Thread thread = new Thread(runnable, "config-snapshot-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.refreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label) {
+        return findOne(application, profile, label, false);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+        Entry entry = entries.computeIfAbsent(new Key(application, profile, label, includeOrigin), Entry::new);
+        entry.lastAccessNanos = System.nanoTime();
+
+        Environment snapshot = entry.snapshot;
+        if (snapshot == null) {
+            snapshot = awaitFirstLoad(entry);
+        }
+        // Copia: los envoltorios del controller (descifrado, overrides) modifican el Environment
+        return copy(snapshot);
+    }
+
+    // Las rutas de búsqueda (ResourceController) no se cachean
+    @Override
+    public Locations getLocations(String application, String profile, String label) {
+        if (delegate instanceof SearchPathLocator locator) {
+            return locator.getLocations(application, profile, label);
+        }
+        return new Locations(application, profile, label, null, new String[0]);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        loader.shutdownNow();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Recarga las fotos en uso y descarta las que nadie pide desde hace maxIdle. El future termina
+    // cuando acaban todas las cargas (con o sin error)
+    CompletableFuture<Void> refreshAll() {
+        long idleLimit = System.nanoTime() - properties.maxIdle().toNanos();
+        entries.values().removeIf(entry -> entry.lastAccessNanos - idleLimit < 0);
+        return CompletableFuture.allOf(entries.values().stream()
+                .map(entry -> entry.load().exceptionally(error -> null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    // El constructor de copia de Environment no copia las property sources
+    private static Environment copy(Environment snapshot) {
+        Environment copy = new Environment(snapshot.getName(), snapshot.getProfiles(), snapshot.getLabel(),
+                snapshot.getVersion(), snapshot.getState());
+        copy.addAll(snapshot.getPropertySources());
+        return copy;
+    }
+
+    private Environment awaitFirstLoad(Entry entry) {
+        try {
+            return entry.load().get(properties.fetchTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EnvironmentException("Interrupted loading " + entry.key, e);
+        } catch (TimeoutException e) {
+            throw new EnvironmentException("Timed out loading " + entry.key, e);
+        } catch (ExecutionException e) {
+            // Errores del backend (p. ej. NoSuchLabelException) tal cual, para el manejo del controller
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new EnvironmentException("Cannot load " + entry.key, e.getCause());
+        } finally {
+            // Una clave que nunca cargó no se refresca en segundo plano
+            if (entry.snapshot == null) {
+                entries.remove(entry.key, entry);
+            }
+        }
+    }
+
+    private record Key(String application, String profile, String label, boolean includeOrigin) {
+
+        @Override
+        public String toString() {
+            return application + "/" + profile + "/" + label;
+        }
+    }
+
+    private final class Entry {
+
+        private final Key key;
+        private final AtomicReference<CompletableFuture<Environment>> inFlight = new AtomicReference<>();
+        private volatile Environment snapshot;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        // Una carga por clave a la vez; las llamadas concurrentes comparten el mismo future
+        CompletableFuture<Environment> load() {
+            CompletableFuture<Environment> pending = new CompletableFuture<>();
+            CompletableFuture<Environment> current = inFlight.compareAndExchange(null, pending);
+            if (current != null) {
+                return current;
+            }
+            try {
+                loader.execute(() -> {
+                    Environment loaded;
+                    try {
+                        loaded = delegate.findOne(key.application(), key.profile(), key.label(),
+                                key.includeOrigin());
+                    } catch (RuntimeException e) {
+                        if (snapshot != null) {
+                            logger.warn("No se pudo recargar {}, se mantiene la versión {}: {}",
+                                    key, snapshot.getVersion(), e.getMessage());
+                        }
+                        inFlight.set(null);
+                        pending.completeExceptionally(e);
+                        return;
+                    }
+                    if (snapshot == null || !sameVersion(snapshot, loaded)) {
+                        logger.info("Foto de configuración {} cargada (versión {})", key, loaded.getVersion());
+                    }
+                    snapshot = loaded;
+                    // Se libera antes de completar: quien espere este future ya puede pedir otra carga
+                    inFlight.set(null);
+                    pending.complete(loaded);
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.set(null);
+                pending.completeExceptionally(e);
+            }
+            return pending;
+        }
+
+        private static boolean sameVersion(Environment previous, Environment loaded) {
+            return previous.getVersion() != null && previous.getVersion().equals(loaded.getVersion());
+        }
+    }
+}
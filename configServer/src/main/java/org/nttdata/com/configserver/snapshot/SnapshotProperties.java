@@ -0,0 +1,23 @@
+package org.nttdata.com.configserver.snapshot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Fotos en memoria de cada application/profile/label ({@link SnapshotEnvironmentRepository}).
+ *
+ * @param refreshInterval cada cuánto se recargan en segundo plano las fotos desde el backend (git)
+ * @param fetchTimeout    espera máxima de una petición por la primera carga de una foto
+ * @param maxIdle         las fotos que nadie pide durante este tiempo se descartan
+ * @param threads         cargas simultáneas contra el backend
+ */
+@ConfigurationProperties("config.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30s") Duration refreshInterval,
+        @DefaultValue("10s") Duration fetchTimeout,
+        @DefaultValue("30m") Duration maxIdle,
+        @DefaultValue("2") int threads) {
+}
@@ -0,0 +1,41 @@
+package org.nttdata.com.configserver.snapshot;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.config.server.environment.CompositeEnvironmentRepository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Envuelve el EnvironmentRepository compuesto (el principal, que usan EnvironmentController y
+ * ResourceController) con {@link SnapshotEnvironmentRepository}. Los repositorios de cada backend
+ * quedan debajo sin cambios.
+ */
+class SnapshotRepositoryPostProcessor implements BeanPostProcessor, DisposableBean {
+
+    private final ObjectProvider<SnapshotProperties> properties;
+    private final List<SnapshotEnvironmentRepository> created = new CopyOnWriteArrayList<>();
+
+    SnapshotRepositoryPostProcessor(ObjectProvider<SnapshotProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CompositeEnvironmentRepository repository) {
+            SnapshotEnvironmentRepository snapshot =
+                    new SnapshotEnvironmentRepository(repository, properties.getObject());
+            created.add(snapshot);
+            return snapshot;
+        }
+        return bean;
+    }
+
+    // El contenedor destruye la instancia original, no la que devuelve el post-procesador
+    @Override
+    public void destroy() {
+        created.forEach(SnapshotEnvironmentRepository::destroy);
+    }
+}
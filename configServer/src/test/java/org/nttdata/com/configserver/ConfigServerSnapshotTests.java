@@ -0,0 +1,124 @@
+package org.nttdata.com.configserver;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Servidor completo contra un repositorio git local en lugar del remoto.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "config.snapshot.refresh-interval=200ms")
+class ConfigServerSnapshotTests {
+
+	private static final Path REPOSITORY;
+	private static final Git GIT;
+
+	static {
+		try {
+			REPOSITORY = Files.createTempDirectory("config-repo");
+			GIT = Git.init().setDirectory(REPOSITORY.toFile()).setInitialBranch("main").call();
+			commit("greeting: hola\n");
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void gitRepository(DynamicPropertyRegistry registry) {
+		// Ruta sin file: para que el servidor clone y haga fetch como con un remoto
+		registry.add("spring.cloud.config.server.git.uri", REPOSITORY::toString);
+		registry.add("spring.cloud.config.server.git.default-label", () -> "main");
+	}
+
+	@AfterAll
+	static void closeRepository() {
+		GIT.close();
+	}
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void unchangedConfigurationIsRevalidatedWithEtag() throws Exception {
+		HttpResponse<String> first = get("/etag-app/default", "If-None-Match", "\"none\"");
+		String etag = first.headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<String> revalidated = get("/etag-app/default", "If-None-Match", etag);
+
+		assertThat(first.statusCode()).isEqualTo(200);
+		assertThat(revalidated.statusCode()).isEqualTo(304);
+		assertThat(revalidated.body()).isEmpty();
+	}
+
+	@Test
+	void committedChangesAreServedAfterBackgroundRefresh() throws Exception {
+		assertThat(get("/refresh-app/default").body()).contains("\"greeting\":\"hola\"");
+
+		commit("greeting: hola\nfarewell: adios\n");
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+		String body = "";
+		while (!body.contains("farewell") && System.nanoTime() < deadline) {
+			Thread.sleep(100);
+			body = get("/refresh-app/default").body();
+		}
+		assertThat(body).contains("\"farewell\":\"adios\"");
+	}
+
+	@Test
+	void largeResponsesAreGzipped() throws Exception {
+		Files.writeString(REPOSITORY.resolve("big-app.yml"), IntStream.range(0, 200)
+				.mapToObj(i -> "property" + i + ": value-" + i)
+				.collect(Collectors.joining("\n")));
+		GIT.add().addFilepattern(".").call();
+		GIT.commit().setMessage("big-app").call();
+
+		HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri("/big-app/default"))
+				.header("Accept-Encoding", "gzip")
+				.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+		assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		try (GZIPInputStream gzip = new GZIPInputStream(new java.io.ByteArrayInputStream(response.body()))) {
+			assertThat(new String(gzip.readAllBytes())).contains("property199");
+		}
+	}
+
+	private HttpResponse<String> get(String path, String... headers) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+		if (headers.length > 0) {
+			request.headers(headers);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static void commit(String applicationYml) throws Exception {
+		Files.writeString(REPOSITORY.resolve("application.yml"), applicationYml);
+		GIT.add().addFilepattern(".").call();
+		GIT.commit().setMessage("config").call();
+	}
+}
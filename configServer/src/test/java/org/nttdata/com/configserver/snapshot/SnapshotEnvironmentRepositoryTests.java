@@ -0,0 +1,121 @@
+package org.nttdata.com.configserver.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.EnvironmentException;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotEnvironmentRepositoryTests {
+
+	private final StubBackend backend = new StubBackend();
+
+	// Sin recargas programadas durante el test: se lanzan a mano con refreshAll()
+	private final SnapshotEnvironmentRepository repository = new SnapshotEnvironmentRepository(backend,
+			new SnapshotProperties(true, Duration.ofHours(1), Duration.ofMillis(500), Duration.ofHours(1), 2));
+
+	@AfterEach
+	void shutdown() {
+		repository.destroy();
+	}
+
+	@Test
+	void repeatedRequestsAreServedFromTheSnapshot() {
+		backend.version = "v1";
+
+		repository.findOne("user-service", "default", "main");
+		Environment environment = repository.findOne("user-service", "default", "main");
+
+		assertThat(environment.getVersion()).isEqualTo("v1");
+		assertThat(backend.calls).hasValue(1);
+	}
+
+	@Test
+	void backgroundRefreshPicksUpNewVersions() throws Exception {
+		backend.version = "v1";
+		repository.findOne("user-service", "default", "main");
+
+		backend.version = "v2";
+		repository.refreshAll().get(5, TimeUnit.SECONDS);
+
+		assertThat(repository.findOne("user-service", "default", "main").getVersion()).isEqualTo("v2");
+	}
+
+	@Test
+	void lastGoodSnapshotIsServedWhileTheBackendFails() throws Exception {
+		backend.version = "v1";
+		repository.findOne("user-service", "default", "main");
+
+		backend.failure = new IllegalStateException("git unreachable");
+		repository.refreshAll().get(5, TimeUnit.SECONDS);
+
+		assertThat(repository.findOne("user-service", "default", "main").getVersion()).isEqualTo("v1");
+	}
+
+	@Test
+	void slowRefreshDoesNotDelayRequests() {
+		backend.version = "v1";
+		repository.findOne("user-service", "default", "main");
+
+		backend.delay = Duration.ofSeconds(2);
+		repository.refreshAll();
+
+		long start = System.nanoTime();
+		Environment environment = repository.findOne("user-service", "default", "main");
+
+		assertThat(environment.getVersion()).isEqualTo("v1");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(200));
+	}
+
+	@Test
+	void firstLoadFailsAfterFetchTimeoutAndIsNotKept() {
+		backend.delay = Duration.ofSeconds(2);
+
+		assertThatThrownBy(() -> repository.findOne("user-service", "default", "main"))
+				.isInstanceOf(EnvironmentException.class);
+		assertThat(repository.size()).isZero();
+	}
+
+	@Test
+	void callersCannotModifyTheSnapshot() {
+		backend.version = "v1";
+
+		repository.findOne("user-service", "default", "main")
+				.addFirst(new PropertySource("overrides", Map.of("a", "b")));
+
+		assertThat(repository.findOne("user-service", "default", "main").getPropertySources()).hasSize(1);
+	}
+
+	private static final class StubBackend implements EnvironmentRepository {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile String version;
+		private volatile RuntimeException failure;
+		private volatile Duration delay = Duration.ZERO;
+
+		@Override
+		public Environment findOne(String application, String profile, String label) {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(delay.toMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			Environment environment = new Environment(application, new String[]{profile}, label, version, null);
+			environment.add(new PropertySource("git:" + application + ".yml", Map.of("version", version)));
+			return environment;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.laboratory.userservice.config;
+
+import com.laboratory.userservice.service.AuthenticationCache;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * DaoAuthenticationProvider que evita la consulta a base de datos y la verificación BCrypt
+ * cuando el mismo usuario vuelve a presentar una credencial ya validada.
+ *
+ * Tras un login correcto, si el hash guardado tiene un coste menor que el actual, se rehace con
+ * la contraseña presentada ({@link UserDetailsPasswordService}).
+ */
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final AuthenticationCache authenticationCache;
+
+    public <S extends UserDetailsService & UserDetailsPasswordService> CachingAuthenticationProvider(
+            S userDetailsService,
+            PasswordEncoder passwordEncoder,
+            AuthenticationCache authenticationCache) {
+        super(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        setUserDetailsPasswordService(userDetailsService);
+        setUserCache(authenticationCache);
+        this.authenticationCache = authenticationCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials != null && userDetails.getPassword() != null
+                && authenticationCache.isVerified(userDetails.getUsername(), credentials.toString(),
+                userDetails.getPassword())) {
+            return;
+        }
+
+        super.additionalAuthenticationChecks(userDetails, authentication);
+
+        // Solo se llega aquí si BCrypt validó la contraseña
+        authenticationCache.markVerified(userDetails.getUsername(), credentials.toString(),
+                userDetails.getPassword());
+    }
+}
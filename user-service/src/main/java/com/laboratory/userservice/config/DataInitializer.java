@@ -1,244 +1,156 @@
 package com.laboratory.userservice.config;
 
+import com.laboratory.userservice.model.Permission;
 import com.laboratory.userservice.model.Role;
 import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.SeedMetadata;
 import com.laboratory.userservice.model.User;
-import com.laboratory.userservice.model.Permission;
+import com.laboratory.userservice.repository.PermissionRepository;
 import com.laboratory.userservice.repository.RoleRepository;
+import com.laboratory.userservice.repository.SeedMetadataRepository;
 import com.laboratory.userservice.repository.UserRepository;
-import com.laboratory.userservice.repository.PermissionRepository;
+import com.laboratory.userservice.service.PasswordHashingService;
+import com.laboratory.userservice.service.RbacService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
+@ConditionalOnProperty(name = "app.data.initialize", havingValue = "true", matchIfMissing = true)
 public class DataInitializer implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
 
+    private static final String SEED_ID = "default";
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final SeedMetadataRepository seedMetadataRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SeedDefinition seed = SeedDefinition.laboratory();
 
     public DataInitializer(UserRepository userRepository,
                            RoleRepository roleRepository,
                            PermissionRepository permissionRepository,
-                           PasswordEncoder passwordEncoder) {
+                           SeedMetadataRepository seedMetadataRepository,
+                           PasswordHashingService passwordHashingService,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.seedMetadataRepository = seedMetadataRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        logger.info("Inicializando datos de prueba...");
+        long start = System.nanoTime();
+        String checksum = seed.checksum();
+
+        // Camino rápido: el esquema ya tiene esta misma definición
+        boolean current = seedMetadataRepository.findById(SEED_ID)
+                .map(metadata -> metadata.getChecksum().equals(checksum))
+                .orElse(false);
+        if (current) {
+            logger.info("Datos de prueba al día (checksum {}), se omite la inicialización", checksum.substring(0, 12));
+            return;
+        }
 
-        // Crear roles si no existen
-        initializeRoles();
+        logger.info("Inicializando datos de prueba...");
 
-        // Crear permisos base
-        initializePermissions();
+        // Hash BCrypt de las contraseñas semilla en el pool de hash, mientras se cargan permisos y roles
+        Map<String, CompletableFuture<String>> passwordHashes = new HashMap<>();
+        for (SeedDefinition.UserSeed user : seed.users()) {
+            passwordHashes.put(user.username(), passwordHashingService.encodeAsync(user.password()));
+        }
 
-        // Asignar permisos a roles
-        assignPermissionsToRoles();
+        Map<String, Permission> permissions = transactionTemplate.execute(status -> upsertPermissions());
+        Map<RoleName, Role> roles = transactionTemplate.execute(status -> upsertRoles(permissions));
+        transactionTemplate.executeWithoutResult(status -> insertUsers(roles, passwordHashes));
 
-        // Crear usuarios de prueba
-        initializeUsers();
+        transactionTemplate.executeWithoutResult(status ->
+                seedMetadataRepository.save(new SeedMetadata(SEED_ID, checksum, Instant.now())));
+        eventPublisher.publishEvent(new RbacService.RbacChangedEvent());
 
-        logger.info("Datos de prueba inicializados correctamente!");
+        logger.info("Datos de prueba inicializados correctamente en {} ms!", (System.nanoTime() - start) / 1_000_000);
     }
 
-    private void initializeRoles() {
-        Arrays.stream(RoleName.values()).forEach(roleName -> {
-            if (!roleRepository.findByName(roleName).isPresent()) {
-                Role role = new Role();
-                role.setName(roleName);
-                role.setDescription(getRoleDescription(roleName));
-                roleRepository.save(role);
-                logger.info("Rol creado: {}", roleName);
-            }
-        });
-    }
+    // Permisos: una lectura y un saveAll por lotes
+    private Map<String, Permission> upsertPermissions() {
+        Map<String, Permission> existing = permissionRepository.findAll().stream()
+                .collect(Collectors.toMap(Permission::getName, Function.identity()));
 
-    private void initializePermissions() {
-        String[][] basePermissions = {
-                {"USER_VIEW", "Puede ver usuarios"},
-                {"USER_EDIT", "Puede editar usuarios"},
-                {"USER_DELETE", "Puede eliminar usuarios"},
-                {"REPORTS_ACCESS", "Puede acceder a los reportes"},
-                {"MODULE_LAB_ACCESS", "Puede acceder al módulo de laboratorio"},
-                {"BUTTON_EXPORT", "Puede usar el botón de exportar datos"}
-        };
-
-        for (String[] perm : basePermissions) {
-            String name = perm[0];
-            String description = perm[1];
-
-            permissionRepository.findByName(name).orElseGet(() -> {
+        for (SeedDefinition.PermissionSeed definition : seed.permissions()) {
+            Permission permission = existing.computeIfAbsent(definition.name(), name -> {
                 Permission p = new Permission();
                 p.setName(name);
-                p.setDescription(description);
                 logger.info("Permiso creado: {}", name);
-                return permissionRepository.save(p);
+                return p;
             });
+            permission.setDescription(definition.description());
         }
+        permissionRepository.saveAll(existing.values());
+        return existing;
     }
 
-    private void assignPermissionsToRoles() {
-        // ADMIN tiene todos los permisos
-        Role adminRole = roleRepository.findByName(RoleName.ROLE_ADMIN).get();
-        adminRole.setPermissions(new HashSet<>(permissionRepository.findAll()));
-        roleRepository.save(adminRole);
-
-        // TÉCNICO: acceso laboratorio + reportes
-        Role tecnicoRole = roleRepository.findByName(RoleName.ROLE_TECHNICIAN).get();
-        Set<Permission> tecnicoPerms = new HashSet<>();
-        tecnicoPerms.add(permissionRepository.findByName("MODULE_LAB_ACCESS").get());
-        tecnicoPerms.add(permissionRepository.findByName("REPORTS_ACCESS").get());
-        tecnicoRole.setPermissions(tecnicoPerms);
-        roleRepository.save(tecnicoRole);
-
-        // SUPERVISOR: reportes + edición de usuarios
-        Role supervisorRole = roleRepository.findByName(RoleName.ROLE_SUPERVISOR).get();
-        Set<Permission> supervisorPerms = new HashSet<>();
-        supervisorPerms.add(permissionRepository.findByName("USER_VIEW").get());
-        supervisorPerms.add(permissionRepository.findByName("USER_EDIT").get());
-        supervisorPerms.add(permissionRepository.findByName("REPORTS_ACCESS").get());
-        supervisorRole.setPermissions(supervisorPerms);
-        roleRepository.save(supervisorRole);
-
-        // VIEWER: solo puede ver usuarios
-        Role viewerRole = roleRepository.findByName(RoleName.ROLE_VIEWER).get();
-        Set<Permission> viewerPerms = new HashSet<>();
-        viewerPerms.add(permissionRepository.findByName("USER_VIEW").get());
-        viewerRole.setPermissions(viewerPerms);
-        roleRepository.save(viewerRole);
-
-        // USER: sin permisos especiales
-        Role userRole = roleRepository.findByName(RoleName.ROLE_USER).get();
-        userRole.setPermissions(new HashSet<>());
-        roleRepository.save(userRole);
-    }
-
-    private void initializeUsers() {
-        // Usuario ADMIN
-        if (!userRepository.findByUsername("admin").isPresent()) {
-            User admin = new User();
-            admin.setUsername("admin");
-            admin.setPassword(passwordEncoder.encode("admin123"));
-            admin.setEmail("admin@laboratorio.com");
-            admin.setFirstName("Administrador");
-            admin.setLastName("Del Sistema");
-            admin.setEnabled(true);
-
-            Set<Role> adminRoles = new HashSet<>();
-            adminRoles.add(roleRepository.findByName(RoleName.ROLE_ADMIN).get());
-            adminRoles.add(roleRepository.findByName(RoleName.ROLE_USER).get());
-            admin.setRoles(adminRoles);
-
-            userRepository.save(admin);
-            logger.info("Usuario admin creado: admin / admin123");
-        }
+    // Roles con sus permisos: una lectura y un saveAll por lotes
+    private Map<RoleName, Role> upsertRoles(Map<String, Permission> permissions) {
+        Map<RoleName, Role> existing = roleRepository.findAllWithPermissions().stream()
+                .collect(Collectors.toMap(Role::getName, Function.identity()));
 
-        // Usuario TÉCNICO
-        if (!userRepository.findByUsername("tecnico").isPresent()) {
-            User tecnico = new User();
-            tecnico.setUsername("tecnico");
-            tecnico.setPassword(passwordEncoder.encode("tecnico123"));
-            tecnico.setEmail("tecnico@laboratorio.com");
-            tecnico.setFirstName("Juan");
-            tecnico.setLastName("Técnico");
-            tecnico.setEnabled(true);
-
-            Set<Role> tecnicoRoles = new HashSet<>();
-            tecnicoRoles.add(roleRepository.findByName(RoleName.ROLE_TECHNICIAN).get());
-            tecnicoRoles.add(roleRepository.findByName(RoleName.ROLE_USER).get());
-            tecnico.setRoles(tecnicoRoles);
-
-            userRepository.save(tecnico);
-            logger.info("Usuario técnico creado: tecnico / tecnico123");
-        }
-
-        // Usuario SUPERVISOR
-        if (!userRepository.findByUsername("supervisor").isPresent()) {
-            User supervisor = new User();
-            supervisor.setUsername("supervisor");
-            supervisor.setPassword(passwordEncoder.encode("super123"));
-            supervisor.setEmail("supervisor@laboratorio.com");
-            supervisor.setFirstName("María");
-            supervisor.setLastName("Supervisora");
-            supervisor.setEnabled(true);
-
-            Set<Role> supervisorRoles = new HashSet<>();
-            supervisorRoles.add(roleRepository.findByName(RoleName.ROLE_SUPERVISOR).get());
-            supervisorRoles.add(roleRepository.findByName(RoleName.ROLE_TECHNICIAN).get());
-            supervisorRoles.add(roleRepository.findByName(RoleName.ROLE_USER).get());
-            supervisor.setRoles(supervisorRoles);
-
-            userRepository.save(supervisor);
-            logger.info("Usuario supervisor creado: supervisor / super123");
-        }
-
-        // Usuario VIEWER
-        if (!userRepository.findByUsername("viewer").isPresent()) {
-            User viewer = new User();
-            viewer.setUsername("viewer");
-            viewer.setPassword(passwordEncoder.encode("viewer123"));
-            viewer.setEmail("viewer@laboratorio.com");
-            viewer.setFirstName("Carlos");
-            viewer.setLastName("Observador");
-            viewer.setEnabled(true);
-
-            Set<Role> viewerRoles = new HashSet<>();
-            viewerRoles.add(roleRepository.findByName(RoleName.ROLE_VIEWER).get());
-            viewerRoles.add(roleRepository.findByName(RoleName.ROLE_USER).get());
-            viewer.setRoles(viewerRoles);
-
-            userRepository.save(viewer);
-            logger.info("Usuario viewer creado: viewer / viewer123");
-        }
-
-        // Usuario REGULAR
-        if (!userRepository.findByUsername("usuario").isPresent()) {
-            User usuario = new User();
-            usuario.setUsername("usuario");
-            usuario.setPassword(passwordEncoder.encode("user123"));
-            usuario.setEmail("usuario@laboratorio.com");
-            usuario.setFirstName("Ana");
-            usuario.setLastName("Usuario");
-            usuario.setEnabled(true);
-
-            Set<Role> userRoles = new HashSet<>();
-            userRoles.add(roleRepository.findByName(RoleName.ROLE_USER).get());
-            usuario.setRoles(userRoles);
-
-            userRepository.save(usuario);
-            logger.info("Usuario regular creado: usuario / user123");
+        for (SeedDefinition.RoleSeed definition : seed.roles()) {
+            Role role = existing.computeIfAbsent(definition.name(), name -> {
+                logger.info("Rol creado: {}", name);
+                return new Role(name, definition.description());
+            });
+            role.setDescription(definition.description());
+            role.setPermissions(definition.permissions().stream()
+                    .map(permissions::get)
+                    .collect(Collectors.toCollection(HashSet::new)));
         }
+        roleRepository.saveAll(existing.values());
+        return existing;
     }
 
-    private String getRoleDescription(RoleName roleName) {
-        switch (roleName) {
-            case ROLE_ADMIN:
-                return "Administrador completo del sistema con todos los permisos";
-            case ROLE_TECHNICIAN:
-                return "Técnico de laboratorio con permisos para gestionar análisis";
-            case ROLE_SUPERVISOR:
-                return "Supervisor que puede aprobar resultados y gestionar técnicos";
-            case ROLE_VIEWER:
-                return "Usuario con permisos de solo lectura";
-            case ROLE_USER:
-                return "Usuario básico del sistema";
-            default:
-                return "Rol del sistema";
+    // Usuarios: solo se crean los que faltan; los existentes no se modifican
+    private void insertUsers(Map<RoleName, Role> roles, Map<String, CompletableFuture<String>> passwordHashes) {
+        Set<String> existing = userRepository.findByUsernameIn(
+                        seed.users().stream().map(SeedDefinition.UserSeed::username).toList())
+                .stream()
+                .map(User::getUsername)
+                .collect(Collectors.toSet());
+
+        List<User> created = new ArrayList<>();
+        for (SeedDefinition.UserSeed definition : seed.users()) {
+            if (existing.contains(definition.username())) {
+                continue;
+            }
+            User user = new User(definition.username(), passwordHashes.get(definition.username()).join(),
+                    definition.email());
+            user.setFirstName(definition.firstName());
+            user.setLastName(definition.lastName());
+            user.setEnabled(true);
+            user.setRoles(definition.roles().stream().map(roles::get).collect(Collectors.toCollection(HashSet::new)));
+            created.add(user);
+            logger.info("Usuario creado: {} / {}", definition.username(), definition.password());
         }
+        userRepository.saveAll(created);
     }
 }
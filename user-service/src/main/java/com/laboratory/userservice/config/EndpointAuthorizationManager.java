@@ -0,0 +1,133 @@
+package com.laboratory.userservice.config;
+
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.service.RbacSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Reglas de autorización por endpoint compiladas al arrancar en una tabla de decisiones.
+ *
+ * Cada regla (patrones de path + requisito) se resuelve por adelantado para las 2^n combinaciones de
+ * roles: por petición solo se busca la primera regla cuyo patrón coincide con el path (decodificado,
+ * como lo enruta Spring MVC), se calcula el bitset de roles del usuario y se lee la decisión. Sin
+ * HandlerMappingIntrospector por matcher, sin SpEL y sin comparar authorities contra cada regla.
+ */
+public final class EndpointAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final RoleName[] ROLE_NAMES = RoleName.values();
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final PathPattern[] patterns;
+    private final int[] ruleOfPattern;
+    private final Requirement[] requirements;
+    // [regla][bitset de roles] -> concedido
+    private final boolean[][] decisions;
+    private final int fallbackRule;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private EndpointAuthorizationManager(Builder builder) {
+        this.patterns = builder.patterns.toArray(PathPattern[]::new);
+        this.ruleOfPattern = builder.ruleOfPattern.stream().mapToInt(Integer::intValue).toArray();
+        this.requirements = builder.requirements.toArray(Requirement[]::new);
+        this.fallbackRule = requirements.length - 1;
+        this.decisions = new boolean[requirements.length][1 << ROLE_NAMES.length];
+        for (int rule = 0; rule < requirements.length; rule++) {
+            for (int mask = 0; mask < 1 << ROLE_NAMES.length; mask++) {
+                decisions[rule][mask] = requirements[rule].grants(mask);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        int rule = ruleFor(context.getRequest());
+        if (requirements[rule].kind() == Kind.PERMIT_ALL) {
+            return GRANTED;
+        }
+        Authentication current = authentication.get();
+        if (!trustResolver.isAuthenticated(current)) {
+            return DENIED;
+        }
+        return decisions[rule][RbacSnapshot.roleMaskOf(current.getAuthorities())] ? GRANTED : DENIED;
+    }
+
+    int ruleFor(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matches(path)) {
+                return ruleOfPattern[i];
+            }
+        }
+        return fallbackRule;
+    }
+
+    private enum Kind { PERMIT_ALL, AUTHENTICATED, ANY_ROLE }
+
+    private record Requirement(Kind kind, int roleMask) {
+        boolean grants(int userRoles) {
+            return switch (kind) {
+                case PERMIT_ALL, AUTHENTICATED -> true;
+                case ANY_ROLE -> (userRoles & roleMask) != 0;
+            };
+        }
+    }
+
+    /**
+     * Reglas en orden de prioridad (gana la primera que coincide), como authorizeHttpRequests.
+     */
+    public static final class Builder {
+
+        private final PathPatternParser parser = new PathPatternParser();
+        private final List<PathPattern> patterns = new ArrayList<>();
+        private final List<Integer> ruleOfPattern = new ArrayList<>();
+        private final List<Requirement> requirements = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder permitAll(String... paths) {
+            return rule(new Requirement(Kind.PERMIT_ALL, 0), paths);
+        }
+
+        public Builder authenticated(String... paths) {
+            return rule(new Requirement(Kind.AUTHENTICATED, 0), paths);
+        }
+
+        public Builder hasAnyRole(Set<RoleName> roles, String... paths) {
+            return rule(new Requirement(Kind.ANY_ROLE, RbacSnapshot.roleMask(roles)), paths);
+        }
+
+        // Regla para el resto de peticiones
+        public EndpointAuthorizationManager anyRequestAuthenticated() {
+            requirements.add(new Requirement(Kind.AUTHENTICATED, 0));
+            return new EndpointAuthorizationManager(this);
+        }
+
+        private Builder rule(Requirement requirement, String... paths) {
+            for (String path : paths) {
+                patterns.add(parser.parse(path));
+                ruleOfPattern.add(requirements.size());
+            }
+            requirements.add(requirement);
+            return this;
+        }
+    }
+}
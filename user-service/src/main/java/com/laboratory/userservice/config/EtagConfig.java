@@ -0,0 +1,20 @@
+package com.laboratory.userservice.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class EtagConfig {
+
+    // ETag (hash del cuerpo) y 304 ante If-None-Match en las lecturas que cachea el api-gateway.
+    // Solo rutas con respuestas pequeñas: el filtro guarda el cuerpo completo en memoria.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/roles", "/api/roles/*", "/api/auth/me");
+        return registration;
+    }
+}
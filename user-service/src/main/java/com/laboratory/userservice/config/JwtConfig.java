@@ -0,0 +1,86 @@
+package com.laboratory.userservice.config;
+
+import com.laboratory.userservice.service.TokenService;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.converter.RsaKeyConverters;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.UUID;
+
+@Configuration
+public class JwtConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtConfig.class);
+
+    // Clave de firma: PEM configurados o, si no hay, un par RSA generado al arrancar
+    @Bean
+    public RSAKey tokenSigningKey(@Value("${app.security.jwt.public-key-location:}") String publicKeyLocation,
+                                  @Value("${app.security.jwt.private-key-location:}") String privateKeyLocation)
+            throws IOException, JOSEException {
+        if (StringUtils.hasText(publicKeyLocation) && StringUtils.hasText(privateKeyLocation)) {
+            ResourceLoader loader = new DefaultResourceLoader();
+            RSAPublicKey publicKey;
+            RSAPrivateKey privateKey;
+            try (InputStream in = loader.getResource(publicKeyLocation).getInputStream()) {
+                publicKey = RsaKeyConverters.x509().convert(in);
+            }
+            try (InputStream in = loader.getResource(privateKeyLocation).getInputStream()) {
+                privateKey = RsaKeyConverters.pkcs8().convert(in);
+            }
+            return new RSAKey.Builder(publicKey)
+                    .privateKey(privateKey)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .keyIDFromThumbprint()
+                    .build();
+        }
+
+        logger.warn("Sin clave de firma configurada: se genera un par RSA efímero para los tokens");
+        return new RSAKeyGenerator(2048)
+                .keyUse(KeyUse.SIGNATURE)
+                .keyID(UUID.randomUUID().toString())
+                .generate();
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder(RSAKey tokenSigningKey) {
+        return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(tokenSigningKey)));
+    }
+
+    // Solo verifica firma y claims: la autorización no consulta la base de datos
+    @Bean
+    public JwtDecoder jwtDecoder(TokenService tokenService) {
+        return tokenService.accessTokenDecoder();
+    }
+
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(TokenService.AUTHORITIES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix("");
+
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return converter;
+    }
+}
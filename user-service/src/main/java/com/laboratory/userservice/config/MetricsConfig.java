@@ -0,0 +1,24 @@
+package com.laboratory.userservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Habilita @Timed en los servicios (UserService, CustomUserDetailsService, RbacService)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Conteo de sentencias por petición (StatementCountFilter)
+    @Bean
+    public HibernatePropertiesCustomizer statementCountCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, StatementCountFilter.INSPECTOR);
+    }
+}
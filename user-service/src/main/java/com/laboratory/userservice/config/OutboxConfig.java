@@ -0,0 +1,28 @@
+package com.laboratory.userservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Relay del outbox (OUTBOX_RELAY_ENABLED): planificación y topic compactado de eventos de usuario
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class OutboxConfig {
+
+    // Compactado: por cada usuario se conserva su último estado (o el tombstone hasta delete.retention.ms)
+    @Bean
+    public NewTopic userEventsTopic(@Value("${app.outbox.topic:user-events}") String topic,
+                                    @Value("${app.outbox.topic-partitions:6}") int partitions,
+                                    @Value("${app.outbox.topic-replicas:1}") int replicas) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+}
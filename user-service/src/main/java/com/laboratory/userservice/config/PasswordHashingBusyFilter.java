@@ -0,0 +1,44 @@
+package com.laboratory.userservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laboratory.userservice.service.PasswordHashingBusyException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Pool de hash saturado al verificar una credencial HTTP Basic: 503 con Retry-After, igual que
+ * ServiceBusyAdvice para los controladores.
+ *
+ * La verificación ocurre dentro de la cadena de seguridad, que solo trata AuthenticationException;
+ * sin este filtro la excepción saldría del contenedor como un 500.
+ */
+public class PasswordHashingBusyFilter extends OncePerRequestFilter {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } catch (PasswordHashingBusyException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.resetBuffer();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfter().toSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            JSON.writeValue(response.getOutputStream(), Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,48 +1,102 @@
 package com.laboratory.userservice.config;
 
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.service.AuthenticationCache;
+import com.laboratory.userservice.service.CustomUserDetailsService;
+import com.laboratory.userservice.service.PasswordHashingService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.Customizer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 
+import java.util.EnumSet;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    // Única evaluación de acceso por petición: las reglas por path se compilan aquí en una tabla de decisiones
+    // (sin @PreAuthorize repetidos en los controladores)
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public EndpointAuthorizationManager endpointAuthorization() {
+        return EndpointAuthorizationManager.builder()
+                // Endpoints públicos
+                .permitAll("/api/auth/**", "/api/users/register")
+                .permitAll("/actuator/health", "/actuator/info", "/livez", "/readyz")
+
+                // Endpoints protegidos por roles
+                .hasAnyRole(EnumSet.of(RoleName.ROLE_ADMIN), "/api/admin/**")
+                .hasAnyRole(EnumSet.of(RoleName.ROLE_ADMIN, RoleName.ROLE_TECHNICIAN), "/api/technician/**")
+                .hasAnyRole(EnumSet.of(RoleName.ROLE_ADMIN), "/api/users/**", "/api/roles/**")
+
+                // Cualquier otra request requiere autenticación
+                .anyRequestAuthenticated();
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           JwtAuthenticationConverter jwtAuthenticationConverter,
+                                           EndpointAuthorizationManager endpointAuthorization,
+                                           @Value("${management.server.port:-1}") int managementPort) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable) // ✅ Forma recomendada en Spring Security 6.1
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
-                        // Endpoints públicos
-                        .requestMatchers("/api/auth/**", "/api/users/register").permitAll()
-                        .requestMatchers("/actuator/health", "/actuator/info").permitAll()
-
-                        // Endpoints protegidos por roles
-                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
-                        .requestMatchers("/api/technician/**").hasAnyRole("ADMIN", "TECHNICIAN")
-                        .requestMatchers("/api/users/**").hasRole("ADMIN")
-                        .requestMatchers("/api/roles/**").hasRole("ADMIN")
-
-                        // Cualquier otra request requiere autenticación
-                        .anyRequest().authenticated()
+                        // Prometheus sin credenciales solo en el puerto de gestión (red interna); en
+                        // cualquier otro puerto la ruta exige autenticación como el resto
+                        .requestMatchers(new AndRequestMatcher(
+                                PathPatternRequestMatcher.withDefaults().matcher("/actuator/prometheus"),
+                                localPort(managementPort))).permitAll()
+                        .anyRequest().access(endpointAuthorization))
+                // Bearer token: solo se verifica la firma, sin ir a la base de datos
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter))
                 )
-                .httpBasic(Customizer.withDefaults()); // ✅ Nueva forma
+                .httpBasic(Customizer.withDefaults()) // ✅ Nueva forma
+                // BCrypt saturado al verificar la credencial: 503 en lugar de un 500 del contenedor
+                .addFilterBefore(new PasswordHashingBusyFilter(), BasicAuthenticationFilter.class);
 
         return http.build();
     }
 
-    // 🔑 Agregar un PasswordEncoder
+    private static RequestMatcher localPort(int port) {
+        return request -> port > 0 && request.getLocalPort() == port;
+    }
+
+    // 🔑 BCrypt con coste calibrado, ejecutado en el pool acotado de PasswordHashingService
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingService passwordHashingService) {
+        return passwordHashingService.passwordEncoder();
+    }
+
+    // Autenticación con cache de UserDetails y de credenciales verificadas
+    @Bean
+    public AuthenticationProvider authenticationProvider(CustomUserDetailsService userDetailsService,
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache) {
+        return new CachingAuthenticationProvider(userDetailsService, passwordEncoder, authenticationCache);
+    }
+
+    // Usado por /api/auth/login para validar usuario y contraseña
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
+        return configuration.getAuthenticationManager();
     }
 
 }
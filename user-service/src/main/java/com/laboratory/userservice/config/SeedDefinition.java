@@ -0,0 +1,78 @@
+package com.laboratory.userservice.config;
+
+import com.laboratory.userservice.model.RoleName;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Definición declarativa de los datos semilla: permisos, roles con sus permisos y usuarios de prueba.
+ * El checksum permite saltar la inicialización cuando el esquema ya tiene esta misma definición.
+ */
+public record SeedDefinition(List<PermissionSeed> permissions, List<RoleSeed> roles, List<UserSeed> users) {
+
+    public record PermissionSeed(String name, String description) {}
+
+    public record RoleSeed(RoleName name, String description, List<String> permissions) {}
+
+    public record UserSeed(String username, String password, String email,
+                           String firstName, String lastName, List<RoleName> roles) {}
+
+    public static SeedDefinition laboratory() {
+        List<PermissionSeed> permissions = List.of(
+                new PermissionSeed("USER_VIEW", "Puede ver usuarios"),
+                new PermissionSeed("USER_EDIT", "Puede editar usuarios"),
+                new PermissionSeed("USER_DELETE", "Puede eliminar usuarios"),
+                new PermissionSeed("REPORTS_ACCESS", "Puede acceder a los reportes"),
+                new PermissionSeed("MODULE_LAB_ACCESS", "Puede acceder al módulo de laboratorio"),
+                new PermissionSeed("BUTTON_EXPORT", "Puede usar el botón de exportar datos")
+        );
+
+        List<RoleSeed> roles = List.of(
+                // ADMIN tiene todos los permisos
+                new RoleSeed(RoleName.ROLE_ADMIN, "Administrador completo del sistema con todos los permisos",
+                        permissions.stream().map(PermissionSeed::name).toList()),
+                // TÉCNICO: acceso laboratorio + reportes
+                new RoleSeed(RoleName.ROLE_TECHNICIAN, "Técnico de laboratorio con permisos para gestionar análisis",
+                        List.of("MODULE_LAB_ACCESS", "REPORTS_ACCESS")),
+                // SUPERVISOR: reportes + edición de usuarios
+                new RoleSeed(RoleName.ROLE_SUPERVISOR, "Supervisor que puede aprobar resultados y gestionar técnicos",
+                        List.of("USER_VIEW", "USER_EDIT", "REPORTS_ACCESS")),
+                // VIEWER: solo puede ver usuarios
+                new RoleSeed(RoleName.ROLE_VIEWER, "Usuario con permisos de solo lectura",
+                        List.of("USER_VIEW")),
+                // USER: sin permisos especiales
+                new RoleSeed(RoleName.ROLE_USER, "Usuario básico del sistema",
+                        List.of())
+        );
+
+        List<UserSeed> users = List.of(
+                new UserSeed("admin", "admin123", "admin@laboratorio.com", "Administrador", "Del Sistema",
+                        List.of(RoleName.ROLE_ADMIN, RoleName.ROLE_USER)),
+                new UserSeed("tecnico", "tecnico123", "tecnico@laboratorio.com", "Juan", "Técnico",
+                        List.of(RoleName.ROLE_TECHNICIAN, RoleName.ROLE_USER)),
+                new UserSeed("supervisor", "super123", "supervisor@laboratorio.com", "María", "Supervisora",
+                        List.of(RoleName.ROLE_SUPERVISOR, RoleName.ROLE_TECHNICIAN, RoleName.ROLE_USER)),
+                new UserSeed("viewer", "viewer123", "viewer@laboratorio.com", "Carlos", "Observador",
+                        List.of(RoleName.ROLE_VIEWER, RoleName.ROLE_USER)),
+                new UserSeed("usuario", "user123", "usuario@laboratorio.com", "Ana", "Usuario",
+                        List.of(RoleName.ROLE_USER))
+        );
+
+        return new SeedDefinition(permissions, roles, users);
+    }
+
+    // SHA-256 de la representación canónica (los records tienen toString estable)
+    public String checksum() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.laboratory.userservice.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Sentencias SQL ejecutadas por petición HTTP (hibernate.statements.per.request, por uri y método).
+ *
+ * Hibernate pasa cada sentencia por {@link #INSPECTOR}, que suma en el contador del hilo de la
+ * petición. El filtro va antes que Spring Security para contar también la autenticación. El trabajo
+ * que sigue en otro hilo (exportaciones NDJSON en streaming) no se cuenta.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    static final StatementInspector INSPECTOR = sql -> {
+        int[] count = STATEMENTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    };
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int[] count = new int[1];
+        STATEMENTS.set(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            STATEMENTS.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("hibernate.statements.per.request")
+                    .description("Sentencias SQL ejecutadas por petición")
+                    .baseUnit("statements")
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .tag("method", request.getMethod())
+                    .register(meterRegistry)
+                    .record(count[0]);
+        }
+    }
+}
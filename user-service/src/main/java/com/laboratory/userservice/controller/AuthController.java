@@ -1,11 +1,20 @@
 package com.laboratory.userservice.controller;
 
-import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.dto.AuthorityCheckRequest;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.service.AuthorityCheckService;
+import com.laboratory.userservice.service.TokenService;
 import com.laboratory.userservice.service.UserService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -13,9 +22,61 @@ import java.util.Map;
 public class AuthController {
 
     private final UserService userService;
+    private final TokenService tokenService;
+    private final AuthenticationManager authenticationManager;
+    private final AuthorityCheckService authorityCheckService;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService,
+                          TokenService tokenService,
+                          AuthenticationManager authenticationManager,
+                          AuthorityCheckService authorityCheckService) {
         this.userService = userService;
+        this.tokenService = tokenService;
+        this.authenticationManager = authenticationManager;
+        this.authorityCheckService = authorityCheckService;
+    }
+
+    // Login: valida credenciales una vez y emite access + refresh token
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody Map<String, String> request) {
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(
+                            request.get("username"), request.get("password")));
+            return ResponseEntity.ok(toResponse(
+                    tokenService.issueTokens((UserDetails) authentication.getPrincipal())));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+        }
+    }
+
+    // Renovar tokens con un refresh token válido (se rota)
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        try {
+            return ResponseEntity.ok(toResponse(tokenService.refresh(request.get("refreshToken"))));
+        } catch (JwtException | AuthenticationException e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+        }
+    }
+
+    // Revocar un access o refresh token. Solo lo rechaza user-service (y solo esta instancia): el
+    // api-gateway valida los access tokens por firma, así que uno revocado se sigue aceptando allí hasta
+    // su expiración (15 min por defecto). Para cortar una sesión, revocar el refresh token
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(@RequestBody Map<String, String> request) {
+        try {
+            tokenService.revoke(request.get("token"));
+            return ResponseEntity.ok(Map.of("message", "Token revoked"));
+        } catch (JwtException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid token"));
+        }
+    }
+
+    // JWK set público para validar los tokens localmente (api-gateway)
+    @GetMapping("/jwks")
+    public Map<String, Object> jwks() {
+        return tokenService.jwkSet();
     }
 
     // Información del usuario actual
@@ -25,16 +86,8 @@ public class AuthController {
             return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
         }
 
-        return userService.findByUsername(authentication.getName())
-                .map(user -> ResponseEntity.ok(Map.of(
-                        "id", user.getId(),
-                        "username", user.getUsername(),
-                        "email", user.getEmail(),
-                        "firstName", user.getFirstName(),
-                        "lastName", user.getLastName(),
-                        "roles", user.getRoles(),
-                        "enabled", user.isEnabled()
-                )))
+        return userService.findViewByUsername(authentication.getName())
+                .map(view -> ResponseEntity.ok().cacheControl(CacheHints.READ).body(view))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -52,6 +105,39 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("hasRole", hasRole));
     }
 
+    // Verificar varios roles/permisos de uno o varios usuarios en una sola petición, con los roles
+    // actuales en la base de datos. Sin usernames: quien llama; otros usuarios solo para ADMIN
+    // (el rol ADMIN de quien pregunta sí sale del token)
+    @PostMapping("/check")
+    public ResponseEntity<?> check(Authentication authentication,
+                                   @RequestBody AuthorityCheckRequest request) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
+        }
+
+        List<String> usernames = request.usernames();
+        boolean onlyCaller = usernames == null || usernames.isEmpty()
+                || usernames.stream().allMatch(authentication.getName()::equals);
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> RoleName.ROLE_ADMIN.name().equals(authority.getAuthority()));
+        if (!onlyCaller && !admin) {
+            return ResponseEntity.status(403).body(Map.of("error", "Checking other users requires ROLE_ADMIN"));
+        }
+
+        try {
+            AuthorityCheckService.Result result = onlyCaller
+                    ? authorityCheckService.checkCaller(authentication.getName(), request.authorities())
+                    : authorityCheckService.checkUsers(usernames, request.authorities());
+            return ResponseEntity.ok(Map.of(
+                    "authorities", result.authorities(),
+                    "granted", result.granted(),
+                    "notFound", result.notFound()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Endpoint público de health check
     @GetMapping("/health")
     public ResponseEntity<?> health() {
@@ -61,4 +147,13 @@ public class AuthController {
                 "timestamp", System.currentTimeMillis()
         ));
     }
+
+    private Map<String, Object> toResponse(TokenService.IssuedTokens tokens) {
+        return Map.of(
+                "accessToken", tokens.accessToken(),
+                "refreshToken", tokens.refreshToken(),
+                "tokenType", "Bearer",
+                "expiresIn", tokens.expiresIn()
+        );
+    }
 }
\ No newline at end of file
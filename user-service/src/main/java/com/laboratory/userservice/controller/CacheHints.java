@@ -0,0 +1,27 @@
+package com.laboratory.userservice.controller;
+
+import org.springframework.http.CacheControl;
+
+/**
+ * Cabecera de invalidación para la cache de respuestas del api-gateway: etiquetas separadas por comas
+ * de las lecturas afectadas por una escritura ("roles", "user:&lt;username&gt;").
+ */
+final class CacheHints {
+
+    static final String HEADER = "X-Cache-Invalidate";
+
+    // GET /api/roles, /api/roles/{name} y /api/auth/me (incluye los roles del usuario)
+    static final String ROLES = "roles";
+
+    // Cache-Control de esas lecturas: sin él Spring Security pone no-store y el gateway no las guarda.
+    // no-cache: el cliente revalida siempre con el ETag
+    static final CacheControl READ = CacheControl.noCache();
+
+    private CacheHints() {
+    }
+
+    // GET /api/auth/me del usuario
+    static String user(String username) {
+        return "user:" + username;
+    }
+}
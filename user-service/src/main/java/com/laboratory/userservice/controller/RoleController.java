@@ -1,39 +1,41 @@
 package com.laboratory.userservice.controller;
 
+import com.laboratory.userservice.dto.RoleView;
 import com.laboratory.userservice.model.Role;
 import com.laboratory.userservice.model.RoleName;
-import com.laboratory.userservice.repository.RoleRepository;
+import com.laboratory.userservice.service.RbacService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/roles")
-@PreAuthorize("hasRole('ADMIN')")
 public class RoleController {
 
-    private final RoleRepository roleRepository;
+    private final RbacService rbacService;
 
-    public RoleController(RoleRepository roleRepository) {
-        this.roleRepository = roleRepository;
+    public RoleController(RbacService rbacService) {
+        this.rbacService = rbacService;
     }
 
+    // Lecturas servidas desde la foto RBAC en memoria
     @GetMapping
-    public List<Role> getAllRoles() {
-        return roleRepository.findAll();
+    public ResponseEntity<List<RoleView>> getAllRoles() {
+        return ResponseEntity.ok().cacheControl(CacheHints.READ).body(rbacService.current().roleViews());
     }
 
     @PostMapping
-    public Role createRole(@RequestBody Role role) {
-        return roleRepository.save(role);
+    public ResponseEntity<RoleView> createRole(@RequestBody Role role) {
+        return ResponseEntity.ok()
+                .header(CacheHints.HEADER, CacheHints.ROLES)
+                .body(RoleView.from(rbacService.saveRole(role)));
     }
 
     @GetMapping("/{name}")
-    public ResponseEntity<Role> getRoleByName(@PathVariable RoleName name) {
-        return roleRepository.findByName(name)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<RoleView> getRoleByName(@PathVariable RoleName name) {
+        return rbacService.current().roleView(name)
+                .map(view -> ResponseEntity.ok().cacheControl(CacheHints.READ).body(view))
                 .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
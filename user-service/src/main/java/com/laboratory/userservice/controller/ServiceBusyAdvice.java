@@ -0,0 +1,24 @@
+package com.laboratory.userservice.controller;
+
+import com.laboratory.userservice.service.PasswordHashingBusyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Pool de hash saturado: 503 con Retry-After en lugar de encolar la petición.
+ */
+@RestControllerAdvice
+public class ServiceBusyAdvice {
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Map<String, String>> passwordHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfter().toSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -1,12 +1,26 @@
 package com.laboratory.userservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.laboratory.userservice.dto.CursorPage;
+import com.laboratory.userservice.dto.ImportResult;
+import com.laboratory.userservice.dto.UserView;
 import com.laboratory.userservice.model.RoleName;
 import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.service.DuplicateCredentialException;
+import com.laboratory.userservice.service.UserImportService;
+import com.laboratory.userservice.service.UserNotFoundException;
 import com.laboratory.userservice.service.UserService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,10 +29,18 @@ import java.util.Set;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectWriter ndjsonWriter;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        // Writer resuelto una vez para el tipo de la vista: sin búsqueda de serializador por fila
+        this.ndjsonWriter = objectMapper.writerFor(UserView.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     // ✅ PUBLICO: Registrar nuevo usuario
@@ -26,64 +48,99 @@ public class UserController {
     public ResponseEntity<?> registerUser(@RequestBody User user) {
         try {
             User createdUser = userService.createUser(user);
-            return ResponseEntity.ok(createdUser);
-        } catch (RuntimeException e) {
+            return ResponseEntity.ok(UserView.from(createdUser));
+        } catch (DuplicateCredentialException | IllegalArgumentException e) {
+            // PasswordHashingBusyException no se captura aquí: la convierte en 503 ServiceBusyAdvice
             return ResponseEntity.badRequest().body(
                     Map.of("error", e.getMessage())
             );
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid user data"));
         }
     }
 
-    // ✅ ADMIN: Obtener todos los usuarios
+    // ✅ ADMIN: Obtener usuarios paginados por cursor
     @GetMapping
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.findAllUsers();
+    public ResponseEntity<CursorPage<UserView>> getAllUsers(@RequestParam(defaultValue = "0") long after,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<UserView> users = userService.findUsers(after, clampLimit(limit));
         return ResponseEntity.ok(users);
     }
 
+    // ✅ ADMIN: Exportar todos los usuarios como NDJSON, una línea por usuario a medida que se leen
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            try {
+                userService.forEachUser(user -> {
+                    try {
+                        ndjsonWriter.writeValue(out, user);
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
     // ✅ ADMIN: Obtener usuario por ID
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        return userService.findAllUsers().stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst()
+        return userService.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // ✅ ADMIN: Obtener usuario por username
     @GetMapping("/username/{username}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getUserByUsername(@PathVariable String username) {
-        return userService.findByUsername(username)
+        return userService.findViewByUsername(username)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // ✅ ADMIN: Crear usuario con roles específicos
     @PostMapping("/admin/create")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> createUserWithRoles(@RequestBody User user,
                                                  @RequestParam List<RoleName> roles) {
         try {
             User createdUser = userService.createUserWithRoles(user, Set.copyOf(roles));
-            return ResponseEntity.ok(createdUser);
-        } catch (RuntimeException e) {
+            return ResponseEntity.ok(UserView.from(createdUser));
+        } catch (DuplicateCredentialException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(
                     Map.of("error", e.getMessage())
             );
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid user data"));
         }
     }
 
+    // ✅ ADMIN: Importación masiva (CSV con cabecera o NDJSON), errores reportados por fila
+    @PostMapping(value = "/bulk", consumes = {"text/csv", APPLICATION_NDJSON})
+    public ResponseEntity<ImportResult> importUsers(@RequestHeader("Content-Type") String contentType,
+                                                    InputStream body) throws IOException {
+        UserImportService.Format format = contentType.startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
+
     // ✅ ADMIN: Actualizar usuario
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
         try {
             User updatedUser = userService.updateUser(id, userDetails);
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok()
+                    .header(CacheHints.HEADER, CacheHints.user(updatedUser.getUsername()))
+                    .body(UserView.from(updatedUser));
+        } catch (DuplicateCredentialException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -91,11 +148,12 @@ public class UserController {
 
     // ✅ ADMIN: Eliminar usuario
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         try {
-            userService.deleteUser(id);
-            return ResponseEntity.ok().body(Map.of("message", "User deleted successfully"));
+            User deletedUser = userService.deleteUser(id);
+            return ResponseEntity.ok()
+                    .header(CacheHints.HEADER, CacheHints.user(deletedUser.getUsername()))
+                    .body(Map.of("message", "User deleted successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -103,12 +161,13 @@ public class UserController {
 
     // ✅ ADMIN: Agregar rol a usuario
     @PostMapping("/{userId}/roles/{roleName}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> addRoleToUser(@PathVariable Long userId,
                                            @PathVariable RoleName roleName) {
         try {
             User user = userService.addRoleToUser(userId, roleName);
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok()
+                    .header(CacheHints.HEADER, CacheHints.user(user.getUsername()))
+                    .body(UserView.from(user));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(
                     Map.of("error", e.getMessage())
@@ -118,12 +177,13 @@ public class UserController {
 
     // ✅ ADMIN: Remover rol de usuario
     @DeleteMapping("/{userId}/roles/{roleName}")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> removeRoleFromUser(@PathVariable Long userId,
                                                 @PathVariable RoleName roleName) {
         try {
             User user = userService.removeRoleFromUser(userId, roleName);
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok()
+                    .header(CacheHints.HEADER, CacheHints.user(user.getUsername()))
+                    .body(UserView.from(user));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(
                     Map.of("error", e.getMessage())
@@ -133,24 +193,28 @@ public class UserController {
 
     // ✅ ADMIN: Cambiar contraseña de usuario
     @PutMapping("/{id}/password")
-    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> changePassword(@PathVariable Long id,
                                             @RequestBody Map<String, String> request) {
         try {
             String newPassword = request.get("newPassword");
             User user = userService.changePassword(id, newPassword);
-            return ResponseEntity.ok(user);
-        } catch (RuntimeException e) {
+            return ResponseEntity.ok()
+                    .header(CacheHints.HEADER, CacheHints.user(user.getUsername()))
+                    .body(UserView.from(user));
+        } catch (UserNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
     // ✅ ADMIN: Obtener usuarios por rol
     @GetMapping("/role/{roleName}")
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getUsersByRole(@PathVariable RoleName roleName) {
+    public ResponseEntity<?> getUsersByRole(@PathVariable RoleName roleName,
+                                            @RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<User> users = userService.findUsersByRole(roleName);
+            CursorPage<UserView> users = userService.findUsersByRole(roleName, after, clampLimit(limit));
             return ResponseEntity.ok(users);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(
@@ -158,4 +222,8 @@ public class UserController {
             );
         }
     }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
 }
\ No newline at end of file
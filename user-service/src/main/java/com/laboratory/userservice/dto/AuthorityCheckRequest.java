@@ -0,0 +1,9 @@
+package com.laboratory.userservice.dto;
+
+import java.util.List;
+
+/**
+ * Petición de POST /api/auth/check: authorities (roles o permisos) a comprobar y, opcionalmente,
+ * los usuarios; sin usernames se comprueba a quien llama.
+ */
+public record AuthorityCheckRequest(List<String> usernames, List<String> authorities) {}
@@ -0,0 +1,18 @@
+package com.laboratory.userservice.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con paginación por cursor (keyset): {@code nextCursor} es el último id
+ * devuelto y se envía como {@code after} para pedir la siguiente página; es null al final.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+
+    public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, Long> idOf) {
+        Long nextCursor = items.size() == limit && !items.isEmpty()
+                ? idOf.apply(items.get(items.size() - 1))
+                : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+}
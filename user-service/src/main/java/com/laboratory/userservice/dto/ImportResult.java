@@ -0,0 +1,11 @@
+package com.laboratory.userservice.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: las filas con error se reportan sin abortar el resto.
+ */
+public record ImportResult(long imported, long failed, List<RowError> errors, boolean errorsTruncated) {
+
+    public record RowError(long line, String username, String error) {}
+}
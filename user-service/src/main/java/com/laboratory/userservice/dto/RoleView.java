@@ -0,0 +1,18 @@
+package com.laboratory.userservice.dto;
+
+import com.laboratory.userservice.model.Permission;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+
+import java.util.List;
+
+/**
+ * Rol tal como lo expone la API: permisos aplanados a sus nombres, ordenados.
+ */
+public record RoleView(Long id, RoleName name, String description, List<String> permissions) {
+
+    public static RoleView from(Role role) {
+        return new RoleView(role.getId(), role.getName(), role.getDescription(),
+                role.getPermissions().stream().map(Permission::getName).sorted().toList());
+    }
+}
@@ -0,0 +1,10 @@
+package com.laboratory.userservice.dto;
+
+import com.laboratory.userservice.model.RoleName;
+
+/**
+ * Proyección de lectura de {@code users} unida a sus roles: una fila por rol ({@code role} es null
+ * si el usuario no tiene ninguno). Solo las columnas que expone {@link UserView}.
+ */
+public record UserRow(Long id, String username, String email, String firstName, String lastName,
+                      boolean enabled, RoleName role) {}
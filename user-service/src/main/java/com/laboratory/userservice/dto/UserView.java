@@ -0,0 +1,74 @@
+package com.laboratory.userservice.dto;
+
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Usuario tal como lo expone la API: sin contraseña y con los roles aplanados a sus nombres.
+ */
+public record UserView(Long id, String username, String email, String firstName, String lastName,
+                       boolean enabled, Set<RoleName> roles) {
+
+    // Desde una entidad ya cargada (respuestas de escritura)
+    public static UserView from(User user) {
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+        }
+        return new UserView(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), user.isEnabled(), Collections.unmodifiableSet(roles));
+    }
+
+    // Agrupa filas ordenadas por id (una por rol) en un usuario por id
+    public static List<UserView> fold(Iterable<UserRow> rows) {
+        List<UserView> users = new ArrayList<>();
+        Folder folder = new Folder(users::add);
+        rows.forEach(folder);
+        folder.finish();
+        return users;
+    }
+
+    /**
+     * Agrupador incremental para recorridos en streaming: emite cada usuario en cuanto llega la
+     * primera fila del siguiente.
+     */
+    public static final class Folder implements Consumer<UserRow> {
+
+        private final Consumer<UserView> downstream;
+        private UserRow current;
+        private Set<RoleName> roles;
+
+        public Folder(Consumer<UserView> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void accept(UserRow row) {
+            if (current == null || !current.id().equals(row.id())) {
+                finish();
+                current = row;
+                roles = EnumSet.noneOf(RoleName.class);
+            }
+            if (row.role() != null) {
+                roles.add(row.role());
+            }
+        }
+
+        public void finish() {
+            if (current != null) {
+                downstream.accept(new UserView(current.id(), current.username(), current.email(),
+                        current.firstName(), current.lastName(), current.enabled(),
+                        Collections.unmodifiableSet(roles)));
+                current = null;
+            }
+        }
+    }
+}
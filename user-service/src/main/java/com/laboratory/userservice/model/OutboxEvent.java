@@ -0,0 +1,78 @@
+package com.laboratory.userservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Evento pendiente de publicar, escrito en la misma transacción que el cambio que lo origina
+@Entity
+@Table(name = "user_outbox")
+public class OutboxEvent {
+
+    // Orden de escritura aproximado: con varias instancias y ids asignados en bloques no sigue el orden
+    // de commit; el orden de un mismo usuario lo da aggregateVersion
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_outbox_seq")
+    @SequenceGenerator(name = "user_outbox_seq", sequenceName = "user_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // Clave del mensaje (id del usuario): fija la partición y el orden por usuario
+    @Column(nullable = false)
+    private String aggregateKey;
+
+    // Versión del usuario (User.version) que refleja el evento
+    @Column(nullable = false)
+    private long aggregateVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserEventType eventType;
+
+    // Estado completo del usuario en JSON; null (tombstone) cuando se elimina
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Envíos fallidos; al llegar a app.outbox.relay.max-attempts se aparca (parkedAt) y deja de reintentarse
+    @Column(nullable = false)
+    private int attempts;
+
+    private Instant parkedAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String aggregateKey, long aggregateVersion, UserEventType eventType, String payload,
+                       Instant createdAt) {
+        this.aggregateKey = aggregateKey;
+        this.aggregateVersion = aggregateVersion;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getAggregateKey() { return aggregateKey; }
+    public void setAggregateKey(String aggregateKey) { this.aggregateKey = aggregateKey; }
+
+    public long getAggregateVersion() { return aggregateVersion; }
+    public void setAggregateVersion(long aggregateVersion) { this.aggregateVersion = aggregateVersion; }
+
+    public UserEventType getEventType() { return eventType; }
+    public void setEventType(UserEventType eventType) { this.eventType = eventType; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getParkedAt() { return parkedAt; }
+    public void setParkedAt(Instant parkedAt) { this.parkedAt = parkedAt; }
+}
@@ -0,0 +1,36 @@
+package com.laboratory.userservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Checksum de la última definición de datos semilla aplicada
+@Entity
+@Table(name = "seed_metadata")
+public class SeedMetadata {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String checksum;
+
+    private Instant appliedAt;
+
+    public SeedMetadata() {}
+
+    public SeedMetadata(String id, String checksum, Instant appliedAt) {
+        this.id = id;
+        this.checksum = checksum;
+        this.appliedAt = appliedAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    public Instant getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(Instant appliedAt) { this.appliedAt = appliedAt; }
+}
@@ -1,5 +1,8 @@
 package com.laboratory.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.HashSet;
 import java.util.Set;
 import jakarta.persistence.*;
@@ -7,29 +10,43 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "users")
 public class User {
+    // Ids por secuencia (asignados en bloques de 50) para permitir inserts por lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
     private String username;
 
+    // Solo entrada (registro/alta): el hash nunca se serializa
     @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
+    // Única: respalda a CredentialFilter ante altas concurrentes o de otras instancias
+    @Column(unique = true)
     private String email;
     private String firstName;
     private String lastName;
     private boolean enabled = true;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id")
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "idx_user_roles_role_user", columnList = "role_id, user_id")
     )
     private Set<Role> roles = new HashSet<>();
 
+    // Versión por usuario (bloqueo optimista): crece con cada cambio confirmado, roles incluidos, y ordena
+    // sus eventos en el outbox. Con default para los inserts JDBC que no la indican
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     // Constructors
     public User() {}
 
@@ -61,6 +78,8 @@ public class User {
     public boolean isEnabled() { return enabled; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
 
+    public long getVersion() { return version; }
+
     public Set<Role> getRoles() { return roles; }
     public void setRoles(Set<Role> roles) { this.roles = roles; }
 
@@ -0,0 +1,10 @@
+package com.laboratory.userservice.model;
+
+// Tipo de cambio publicado en el stream de eventos de usuario (cabecera event-type)
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    ROLES_CHANGED,
+    PASSWORD_CHANGED,
+    DELETED
+}
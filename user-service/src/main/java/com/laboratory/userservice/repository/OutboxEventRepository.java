@@ -0,0 +1,14 @@
+package com.laboratory.userservice.repository;
+
+import com.laboratory.userservice.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Siguiente lote a publicar, en orden de escritura; los aparcados quedan fuera
+    List<OutboxEvent> findByParkedAtIsNullOrderByIdAsc(Limit limit);
+
+    long countByParkedAtIsNotNull();
+}
@@ -3,8 +3,15 @@ package com.laboratory.userservice.repository;
 import com.laboratory.userservice.model.Role;
 import com.laboratory.userservice.model.RoleName;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
     Optional<Role> findByName(RoleName name);
+
+    // Todos los roles con sus permisos en una sola consulta (foto RBAC)
+    @Query("select distinct r from Role r left join fetch r.permissions")
+    List<Role> findAllWithPermissions();
 }
\ No newline at end of file
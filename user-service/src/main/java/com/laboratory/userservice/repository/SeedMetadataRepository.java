@@ -0,0 +1,7 @@
+package com.laboratory.userservice.repository;
+
+import com.laboratory.userservice.model.SeedMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SeedMetadataRepository extends JpaRepository<SeedMetadata, String> {
+}
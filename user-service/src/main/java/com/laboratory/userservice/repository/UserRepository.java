@@ -1,11 +1,95 @@
 package com.laboratory.userservice.repository;
 
+import com.laboratory.userservice.dto.UserRow;
+import com.laboratory.userservice.model.RoleName;
 import com.laboratory.userservice.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Lecturas de un usuario: roles y permisos en una sola consulta
+    @EntityGraph(attributePaths = {"roles", "roles.permissions"})
     Optional<User> findByUsername(String username);
+
+    @Override
+    @EntityGraph(attributePaths = {"roles", "roles.permissions"})
+    Optional<User> findById(Long id);
+
+    // Autenticación: solo los roles; los permisos salen de la foto RBAC
+    @EntityGraph(attributePaths = "roles")
+    @Query("select u from User u where u.username = :username")
+    Optional<User> findWithRolesByUsername(@Param("username") String username);
+
+    // Rehash de contraseña sin cargar la entidad
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    // Usernames y emails ya registrados de un lote, en una sola consulta
+    @Query("select u.username, u.email from User u where u.username in :usernames or u.email in :emails")
+    List<Object[]> findExistingCredentials(@Param("usernames") Collection<String> usernames,
+                                           @Param("emails") Collection<String> emails);
+
+    // Roles de un lote de usuarios activos (username, rol; rol null si no tiene), para comprobar authorities
+    @Query("select u.username, r.name from User u left join u.roles r where u.username in :usernames and u.enabled = true")
+    List<Object[]> findRoleNamesByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // Proyecciones de lectura (UserRow): solo las columnas de la respuesta, roles aplanados a su nombre.
+    // Sin entidades en el contexto de persistencia ni colecciones lazy que inicializar
+    String USER_ROWS = "select new com.laboratory.userservice.dto.UserRow("
+            + "u.id, u.username, u.email, u.firstName, u.lastName, u.enabled, r.name) "
+            + "from User u left join u.roles r ";
+
+    @Query(USER_ROWS + "where u.id = :id")
+    List<UserRow> findRowsById(@Param("id") Long id);
+
+    @Query(USER_ROWS + "where u.username = :username")
+    List<UserRow> findRowsByUsername(@Param("username") String username);
+
+    @Query(USER_ROWS + "where u.id in :ids order by u.id")
+    List<UserRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Página de ids a partir de un id (keyset); el límite se aplica a usuarios, no a filas usuario-rol
+    @Query("select u.id from User u where u.id > :afterId order by u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Ids de usuarios con un rol, paginados por id (keyset) usando el índice user_roles(role_id, user_id)
+    @Query("select u.id from User u join u.roles r where r.name = :roleName and u.id > :afterId order by u.id")
+    List<Long> findIdsByRoleNameAfter(@Param("roleName") RoleName roleName, @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    // Recorrido forward-only de toda la tabla, leído por bloques del fetch size
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(USER_ROWS + "order by u.id")
+    Stream<UserRow> streamRowsOrderById();
+
+    // Todos los usernames y emails, para construir CredentialFilter
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.username, u.email from User u")
+    Stream<Object[]> streamCredentials();
+}
@@ -0,0 +1,28 @@
+package com.laboratory.userservice.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones sobre estado en memoria (caches, filtros) que deben reflejar solo cambios confirmados:
+ * dentro de una transacción se aplazan a su commit (y se descartan con el rollback); fuera, se
+ * ejecutan en el acto.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.laboratory.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Cache acotado con expiración (TTL) de los {@link UserDetails} resueltos y de las
+ * credenciales ya verificadas con BCrypt.
+ *
+ * La contraseña presentada nunca se guarda: se almacena un HMAC-SHA256 calculado con una
+ * clave aleatoria generada en cada arranque, junto con el hash BCrypt contra el que se validó.
+ * Si el hash almacenado cambia, la entrada deja de coincidir aunque no haya sido invalidada.
+ */
+@Component
+public class AuthenticationCache implements UserCache, MeterBinder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, UserDetails> userDetails;
+    private final Cache<String, VerifiedCredential> credentials;
+    private final SecretKeySpec digestKey;
+
+    public AuthenticationCache(@Value("${app.security.auth-cache.ttl:5m}") Duration ttl,
+                               @Value("${app.security.auth-cache.max-size:10000}") long maxSize) {
+        this.userDetails = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.credentials = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    // cache.gets{cache="auth.user-details|auth.credentials",result="hit|miss"}, evictions, tamaño
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, userDetails, "auth.user-details");
+        CaffeineCacheMetrics.monitor(registry, credentials, "auth.credentials");
+    }
+
+    // UserDetails: se devuelven copias porque ProviderManager borra la contraseña del principal
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails cached = userDetails.getIfPresent(username);
+        return cached != null ? User.withUserDetails(cached).build() : null;
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        userDetails.put(user.getUsername(), User.withUserDetails(user).build());
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        userDetails.invalidate(username);
+    }
+
+    // Credenciales verificadas
+    public boolean isVerified(String username, String rawPassword, String encodedPassword) {
+        VerifiedCredential cached = credentials.getIfPresent(username);
+        return cached != null
+                && cached.encodedPassword().equals(encodedPassword)
+                && MessageDigest.isEqual(cached.digest(), digest(username, rawPassword));
+    }
+
+    public void markVerified(String username, String rawPassword, String encodedPassword) {
+        credentials.put(username, new VerifiedCredential(digest(username, rawPassword), encodedPassword));
+    }
+
+    // Invalidar todo lo cacheado para un usuario (cambio de contraseña, roles, estado o borrado).
+    // Dentro de una transacción se hace al confirmarla: antes, un login concurrente volvería a cachear
+    // la fila anterior (usuario borrado o deshabilitado, rol retirado) durante todo el TTL
+    public void invalidate(String username) {
+        AfterCommit.run(() -> {
+            userDetails.invalidate(username);
+            credentials.invalidate(username);
+        });
+    }
+
+    public void invalidateAll() {
+        userDetails.invalidateAll();
+        credentials.invalidateAll();
+    }
+
+    private byte[] digest(String username, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private record VerifiedCredential(byte[] digest, String encodedPassword) {}
+}
@@ -0,0 +1,122 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Comprobaciones de roles y permisos por lote para otros servicios: una petición resuelve varias
+ * authorities de uno o varios usuarios.
+ *
+ * Cada authority pedida se traduce una vez a su índice en la foto RBAC y cada usuario a su bitset de
+ * roles (una sola consulta para todo el lote); la respuesta sale de los bitsets de authorities
+ * precalculados por combinación de roles, sin recorrer listas de authorities.
+ *
+ * Los roles salen siempre de la base de datos, también para quien llama: los del token pueden tener
+ * la antigüedad del access token y la respuesta no debe depender de a quién se pregunta.
+ */
+@Service
+public class AuthorityCheckService {
+
+    private final UserRepository userRepository;
+    private final RbacService rbacService;
+    private final int maxUsers;
+    private final int maxAuthorities;
+
+    public AuthorityCheckService(UserRepository userRepository,
+                                 RbacService rbacService,
+                                 @Value("${app.security.authority-check.max-users:500}") int maxUsers,
+                                 @Value("${app.security.authority-check.max-authorities:64}") int maxAuthorities) {
+        this.userRepository = userRepository;
+        this.rbacService = rbacService;
+        this.maxUsers = maxUsers;
+        this.maxAuthorities = maxAuthorities;
+    }
+
+    /**
+     * @param granted  por usuario, una posición por authority pedida (en el mismo orden)
+     * @param notFound usuarios inexistentes o deshabilitados
+     */
+    public record Result(List<String> authorities, Map<String, boolean[]> granted, List<String> notFound) {}
+
+    // Authorities de quien llama
+    @Timed(value = "auth.check", description = "Comprobación de authorities por lote", extraTags = {"target", "caller"})
+    public Result checkCaller(String username, List<String> authorities) {
+        return check(List.of(username), authorities);
+    }
+
+    // Authorities de los usuarios indicados
+    @Timed(value = "auth.check", description = "Comprobación de authorities por lote", extraTags = {"target", "users"})
+    public Result checkUsers(Collection<String> usernames, List<String> authorities) {
+        return check(usernames, authorities);
+    }
+
+    private Result check(Collection<String> usernames, List<String> authorities) {
+        validate(authorities, usernames);
+        Map<String, Integer> roleMasks = new LinkedHashMap<>();
+        for (Object[] row : userRepository.findRoleNamesByUsernameIn(new HashSet<>(usernames))) {
+            int bit = row[1] != null ? 1 << ((RoleName) row[1]).ordinal() : 0;
+            roleMasks.merge((String) row[0], bit, (a, b) -> a | b);
+        }
+
+        RbacSnapshot snapshot = rbacService.current();
+        int[] bits = bits(snapshot, authorities);
+        Map<String, boolean[]> granted = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String username : usernames) {
+            Integer roleMask = roleMasks.get(username);
+            if (roleMask == null) {
+                notFound.add(username);
+            } else {
+                granted.putIfAbsent(username, granted(snapshot, roleMask, bits));
+            }
+        }
+        return new Result(authorities, granted, notFound);
+    }
+
+    private void validate(List<String> authorities, Collection<String> usernames) {
+        if (authorities == null || authorities.isEmpty()) {
+            throw new IllegalArgumentException("At least one authority is required");
+        }
+        if (authorities.size() > maxAuthorities) {
+            throw new IllegalArgumentException("Too many authorities (max " + maxAuthorities + ")");
+        }
+        if (authorities.stream().anyMatch(AuthorityCheckService::blank)) {
+            throw new IllegalArgumentException("Authorities must not be null or blank");
+        }
+        if (usernames.isEmpty()) {
+            throw new IllegalArgumentException("At least one username is required");
+        }
+        if (usernames.size() > maxUsers) {
+            throw new IllegalArgumentException("Too many usernames (max " + maxUsers + ")");
+        }
+        if (usernames.stream().anyMatch(AuthorityCheckService::blank)) {
+            throw new IllegalArgumentException("Usernames must not be null or blank");
+        }
+    }
+
+    private static boolean blank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static int[] bits(RbacSnapshot snapshot, List<String> authorities) {
+        int[] bits = new int[authorities.size()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = snapshot.authorityBit(authorities.get(i));
+        }
+        return bits;
+    }
+
+    private static boolean[] granted(RbacSnapshot snapshot, int roleMask, int[] bits) {
+        BitSet authorityBits = snapshot.authorityBits(roleMask);
+        boolean[] granted = new boolean[bits.length];
+        for (int i = 0; i < bits.length; i++) {
+            granted[i] = bits[i] >= 0 && authorityBits.get(bits[i]);
+        }
+        return granted;
+    }
+}
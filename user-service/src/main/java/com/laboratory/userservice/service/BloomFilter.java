@@ -0,0 +1,123 @@
+package com.laboratory.userservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas sobre un array de bits compartido entre hilos (CAS por palabra).
+ *
+ * Tamaño y número de funciones hash a partir de la capacidad prevista n y la tasa de falsos
+ * positivos p: m = -n·ln p / ln²2 bits y k = m/n·ln 2, es decir ~9,6 bits por entrada con k = 7 al 1 %.
+ * Las k posiciones salen de dos hashes de 64 bits (h1 + i·h2). Sin falsos negativos: lo añadido
+ * siempre da positivo; no admite borrados.
+ */
+final class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long capacity;
+    private final AtomicLong bitsSet = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long capacity, long bits, int hashFunctions) {
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) >>> 6));
+        this.bitSize = (long) words.length() << 6;
+        this.hashFunctions = hashFunctions;
+        this.capacity = capacity;
+    }
+
+    static BloomFilter create(long expectedInsertions, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(n, bits, k);
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ GOLDEN) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            set(Long.remainderUnsigned(h1 + i * h2, bitSize));
+        }
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ GOLDEN) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitSize);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long insertions() {
+        return insertions.get();
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    long sizeInBytes() {
+        return bitSize >>> 3;
+    }
+
+    // Probabilidad de falso positivo con la ocupación actual: (bits a 1 / m)^k
+    double expectedFpp() {
+        return Math.pow((double) bitsSet.get() / bitSize, hashFunctions);
+    }
+
+    private void set(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        bitsSet.incrementAndGet();
+    }
+
+    // FNV-1a sobre los char (sin codificar a bytes)
+    private static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Finalizador de MurmurHash3: reparte los bits de entradas parecidas (user1, user2...)
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85a53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,222 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Filtros de Bloom en memoria de los usernames y emails registrados. El alta solo consulta la BD
+ * cuando el filtro dice que el valor puede existir; un negativo es seguro (sin falsos negativos) y
+ * ahorra las dos consultas de existencia.
+ *
+ * Se construyen al arrancar recorriendo la tabla en streaming y se amplían al confirmar cada alta o
+ * cambio de email en esta instancia. No admiten borrados: los valores liberados quedan como falsos
+ * positivos (cuestan la consulta de siempre) y se reconstruyen en segundo plano cuando superan
+ * rebuild-stale-ratio de las entradas o se llena la capacidad. Las altas de otras instancias no pasan
+ * por aquí: la restricción única de username y email en la BD es la garantía final.
+ */
+@Component
+public class CredentialFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialFilter.class);
+
+    public enum Kind { USERNAME, EMAIL }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AsyncTaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final double fpp;
+    private final long minCapacity;
+    private final double rebuildStaleRatio;
+    private final Map<Kind, Map<Boolean, Counter>> checks;
+
+    // null hasta la primera carga: sin filtro todo "puede existir" y se consulta la BD
+    private final AtomicReference<Filters> current = new AtomicReference<>();
+    // Filtros en construcción: las altas confirmadas durante el recorrido se anotan también aquí
+    private volatile Filters building;
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Counter falsePositives;
+
+    public CredentialFilter(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.users.credential-filter.enabled:true}") boolean enabled,
+                            @Value("${app.users.credential-filter.fpp:0.01}") double fpp,
+                            @Value("${app.users.credential-filter.min-capacity:100000}") long minCapacity,
+                            @Value("${app.users.credential-filter.rebuild-stale-ratio:0.1}") double rebuildStaleRatio) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.fpp = fpp;
+        this.minCapacity = minCapacity;
+        this.rebuildStaleRatio = rebuildStaleRatio;
+
+        this.checks = Map.of(
+                Kind.USERNAME, Map.of(true, checkCounter(meterRegistry, Kind.USERNAME, "maybe"),
+                        false, checkCounter(meterRegistry, Kind.USERNAME, "absent")),
+                Kind.EMAIL, Map.of(true, checkCounter(meterRegistry, Kind.EMAIL, "maybe"),
+                        false, checkCounter(meterRegistry, Kind.EMAIL, "absent")));
+        this.falsePositives = Counter.builder("user.credentials.filter.false.positives")
+                .description("Positivos del filtro que la BD no confirmó").register(meterRegistry);
+        Gauge.builder("user.credentials.filter.bytes", current,
+                        ref -> ref.get() == null ? 0 : ref.get().sizeInBytes())
+                .description("Memoria de los filtros de usernames y emails").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("user.credentials.filter.expected.fpp", current,
+                        ref -> ref.get() == null ? 1 : ref.get().emails().expectedFpp())
+                .description("Tasa de falsos positivos estimada con la ocupación actual").register(meterRegistry);
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, Kind kind, String result) {
+        return Counter.builder("user.credentials.filter.checks")
+                .tag("kind", kind.name().toLowerCase())
+                .tag("result", result)
+                .description("Comprobaciones de existencia resueltas por el filtro (absent) o enviadas a la BD (maybe)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Existencia de un username o email: negativo del filtro sin consulta, positivo confirmado con
+     * {@code database}.
+     */
+    public boolean exists(Kind kind, String value, Predicate<String> database) {
+        if (value == null) {
+            return database.test(null);
+        }
+        Filters filters = current.get();
+        if (!mightContain(filters, kind, value)) {
+            return false;
+        }
+        boolean exists = database.test(value);
+        // Sin filtro cargado (arranque, reconstrucción fallida) no hubo positivo que contar
+        if (!exists && filters != null) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    public boolean mightContain(Kind kind, String value) {
+        return mightContain(current.get(), kind, value);
+    }
+
+    private boolean mightContain(Filters filters, Kind kind, String value) {
+        boolean maybe = filters == null || filters.of(kind).mightContain(value);
+        checks.get(kind).get(maybe).increment();
+        return maybe;
+    }
+
+    // Alta o cambio de email; dentro de una transacción se aplica al confirmarla
+    public void add(String username, String email) {
+        AfterCommit.run(() -> {
+            // building antes que current: si la reconstrucción termina entre medias, current ya es la nueva
+            Filters pending = building;
+            if (pending != null) {
+                pending.put(username, email);
+            }
+            Filters filters = current.get();
+            if (filters != null) {
+                filters.put(username, email);
+                if (filters.usernames().insertions() > filters.usernames().capacity()) {
+                    rebuildAsync();
+                }
+            }
+        });
+    }
+
+    // Baja o email sustituido: sigue en el filtro como falso positivo hasta la próxima reconstrucción
+    public void remove(String username, String email) {
+        AfterCommit.run(() -> {
+            Filters filters = current.get();
+            if (filters == null) {
+                return;
+            }
+            long released = stale.addAndGet((username != null ? 1 : 0) + (email != null ? 1 : 0));
+            if (released > rebuildStaleRatio * Math.max(1, filters.emails().insertions())) {
+                rebuildAsync();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuildAsync() {
+        if (enabled && !rebuilding.get()) {
+            taskExecutor.execute(this::rebuild);
+        }
+    }
+
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            long capacity = Math.max(minCapacity, userRepository.count() * 2);
+            Filters filters = new Filters(BloomFilter.create(capacity, fpp), BloomFilter.create(capacity, fpp));
+            building = filters;
+            stale.set(0);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> credentials = userRepository.streamCredentials()) {
+                    credentials.forEach(row -> filters.put((String) row[0], (String) row[1]));
+                }
+            });
+            current.set(filters);
+            logger.info("Filtro de credenciales cargado: {} usuarios, capacidad {}, {} KB, fpp estimada {} en {} ms",
+                    filters.usernames().insertions(), capacity, filters.sizeInBytes() / 1024,
+                    String.format("%.4f", filters.emails().expectedFpp()),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo reconstruir el filtro de credenciales: {}", e.getMessage());
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+
+        BloomFilter of(Kind kind) {
+            return kind == Kind.USERNAME ? usernames : emails;
+        }
+
+        void put(String username, String email) {
+            if (username != null) {
+                usernames.put(username);
+            }
+            if (email != null) {
+                emails.put(email);
+            }
+        }
+
+        long sizeInBytes() {
+            return usernames.sizeInBytes() + emails.sizeInBytes();
+        }
+    }
+}
@@ -1,64 +1,70 @@
 package com.laboratory.userservice.service;
 
 import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
 import com.laboratory.userservice.model.User;
 import com.laboratory.userservice.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final RbacService rbacService;
+    private final AuthenticationCache authenticationCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, RbacService rbacService,
+                                    AuthenticationCache authenticationCache) {
         this.userRepository = userRepository;
+        this.rbacService = rbacService;
+        this.authenticationCache = authenticationCache;
     }
 
+    // Solo en fallos de cache (AuthenticationCache): mide la carga desde la base de datos
     @Override
     @Transactional
+    @Timed(value = "user.details.load", description = "Carga de UserDetails desde la base de datos")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findWithRolesByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
-                .authorities(mapRolesToAuthorities(user.getRoles()))
                 .disabled(!user.isEnabled())
                 .authorities(mapRolesAndPermissions(user.getRoles()))
                 .build();
     }
 
-    private Collection<? extends GrantedAuthority> mapRolesToAuthorities(Collection<Role> roles) {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                .collect(Collectors.toList());
+    // Rehash tras un login correcto con un hash de coste desactualizado
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        authenticationCache.invalidate(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
     }
 
-    private Collection<? extends GrantedAuthority> mapRolesAndPermissions(Collection<Role> roles) {
-        Set<GrantedAuthority> authorities = new HashSet<>();
-
+    // Roles y permisos resueltos desde la foto RBAC, sin consultas
+    public Collection<? extends GrantedAuthority> mapRolesAndPermissions(Collection<Role> roles) {
+        Set<RoleName> roleNames = EnumSet.noneOf(RoleName.class);
         for (Role role : roles) {
-            // Rol
-            authorities.add(new SimpleGrantedAuthority(role.getName().name()));
-
-            // Permisos del rol
-            role.getPermissions().forEach(permission ->
-                    authorities.add(new SimpleGrantedAuthority(permission.getName())));
+            roleNames.add(role.getName());
         }
-
-        return authorities;
+        return rbacService.authoritiesFor(roleNames);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.laboratory.userservice.service;
+
+import java.sql.SQLException;
+
+/**
+ * Username o email ya registrados (alta o cambio de email).
+ */
+public class DuplicateCredentialException extends RuntimeException {
+
+    // SQLSTATE de violación de unicidad (H2, PostgreSQL) y código de MySQL/MariaDB
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+    public DuplicateCredentialException(String message) {
+        super(message);
+    }
+
+    // Solo las violaciones de unicidad son duplicados; NOT NULL, claves foráneas, etc. no
+    static boolean isUniqueViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql
+                    && (UNIQUE_VIOLATION.equals(sql.getSQLState()) || sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.OutboxEvent;
+import com.laboratory.userservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publica la tabla outbox en Kafka por lotes y borra las filas confirmadas.
+ *
+ * Los ids salen de una secuencia asignada en bloques y varias instancias escriben en el outbox, así que
+ * el orden de id no es el de commit ni siquiera para un mismo usuario. Dentro de cada lote los eventos
+ * de un usuario se publican por versión (aggregate-version) y un evento con una versión menor que la
+ * última ya publicada para ese usuario se descarta sin publicar: en el topic compactado no puede ganar
+ * un estado anterior. Lo que escapa a esta instancia (reinicios) lo resuelven los consumidores
+ * descartando versiones antiguas (ver {@link UserEventOutbox}).
+ *
+ * Entrega al menos una vez: los eventos confirmados por Kafka se borran y los que fallan se reintentan
+ * en la siguiente pasada. El productor idempotente mantiene el orden por partición y, como cada
+ * mensaje lleva el estado completo con el id de usuario como clave, un reenvío solo repite un estado
+ * ya publicado. Las cabeceras event-id (id del outbox) y event-type permiten deduplicar en los
+ * consumidores. Un evento que falla max-attempts veces se aparca (parkedAt, con un log de error) para
+ * que no bloquee a los demás; queda en la tabla para revisarlo o reencolarlo (parkedAt = null).
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String topic;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final int maxAttempts;
+    private final Counter published;
+    private final Counter failures;
+    private final Counter stale;
+    private final Counter parked;
+    // Última versión publicada por usuario (acotada: las claves frías se olvidan)
+    private final Cache<String, Long> publishedVersions = Caffeine.newBuilder().maximumSize(100_000).build();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, String> kafkaTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.topic:user-events}") String topic,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.send-timeout:10s}") Duration sendTimeout,
+                       @Value("${app.outbox.relay.max-attempts:10}") int maxAttempts) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.maxAttempts = maxAttempts;
+        this.published = Counter.builder("user.outbox.published")
+                .description("Eventos de usuario publicados en Kafka").register(meterRegistry);
+        this.failures = Counter.builder("user.outbox.failures")
+                .description("Envíos de eventos del outbox que fallaron").register(meterRegistry);
+        this.stale = Counter.builder("user.outbox.stale")
+                .description("Eventos descartados por tener una versión anterior a la ya publicada").register(meterRegistry);
+        this.parked = Counter.builder("user.outbox.parked")
+                .description("Eventos aparcados tras agotar los reintentos").register(meterRegistry);
+        Gauge.builder("user.outbox.parked.pending", outboxEventRepository, OutboxEventRepository::countByParkedAtIsNotNull)
+                .description("Eventos aparcados pendientes de revisión").register(meterRegistry);
+    }
+
+    // Vacía el outbox mientras haya lotes completos; fixedDelay evita pasadas solapadas
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:200ms}")
+    public void relay() {
+        while (publishBatch() == batchSize) {
+            // siguiente lote
+        }
+    }
+
+    int publishBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByParkedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> ordered = new ArrayList<>(batch);
+        ordered.sort(Comparator.comparing(OutboxEvent::getAggregateKey)
+                .thenComparingLong(OutboxEvent::getAggregateVersion)
+                .thenComparing(OutboxEvent::getId));
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        List<Long> done = new ArrayList<>(batch.size());
+        List<OutboxEvent> sent = new ArrayList<>(batch.size());
+        for (OutboxEvent event : ordered) {
+            Long last = publishedVersions.getIfPresent(event.getAggregateKey());
+            if (last != null && event.getAggregateVersion() < last) {
+                stale.increment();
+                logger.debug("Evento {} del usuario {} descartado: versión {} < {} ya publicada", event.getId(),
+                        event.getAggregateKey(), event.getAggregateVersion(), last);
+                done.add(event.getId());
+                continue;
+            }
+            ProducerRecord<String, String> record =
+                    new ProducerRecord<>(topic, event.getAggregateKey(), event.getPayload());
+            record.headers()
+                    .add("event-id", event.getId().toString().getBytes(StandardCharsets.UTF_8))
+                    .add("event-type", event.getEventType().name().getBytes(StandardCharsets.UTF_8))
+                    .add("aggregate-version",
+                            Long.toString(event.getAggregateVersion()).getBytes(StandardCharsets.UTF_8));
+            sends.add(send(record));
+            sent.add(event);
+        }
+        kafkaTemplate.flush();
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException | TimeoutException e) {
+            // Se resuelve evento a evento: los confirmados se borran, los demás cuentan un intento
+        }
+
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (int i = 0; i < sent.size(); i++) {
+            OutboxEvent event = sent.get(i);
+            if (sends.get(i).state() == Future.State.SUCCESS) {
+                publishedVersions.asMap().merge(event.getAggregateKey(), event.getAggregateVersion(), Math::max);
+                done.add(event.getId());
+            } else {
+                failed.add(event);
+                recordFailure(event, sends.get(i));
+            }
+        }
+        outboxEventRepository.deleteAllByIdInBatch(done);
+        outboxEventRepository.saveAll(failed);
+        published.increment(sent.size() - failed.size());
+        // Con fallos se para hasta la siguiente pasada
+        return failed.isEmpty() ? batch.size() : 0;
+    }
+
+    private CompletableFuture<?> send(ProducerRecord<String, String> record) {
+        try {
+            return kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, CompletableFuture<?> send) {
+        failures.increment();
+        String cause = send.state() == Future.State.FAILED
+                ? send.exceptionNow().getMessage()
+                : "sin confirmación en " + sendTimeout;
+        event.setAttempts(event.getAttempts() + 1);
+        if (event.getAttempts() < maxAttempts) {
+            logger.warn("No se pudo publicar el evento {} del outbox (intento {}/{}), se reintentará: {}",
+                    event.getId(), event.getAttempts(), maxAttempts, cause);
+            return;
+        }
+        event.setParkedAt(Instant.now());
+        parked.increment();
+        logger.error("Evento {} del outbox aparcado tras {} intentos (usuario {}, {}, versión {}): {}",
+                event.getId(), event.getAttempts(), event.getAggregateKey(), event.getEventType(),
+                event.getAggregateVersion(), cause);
+    }
+}
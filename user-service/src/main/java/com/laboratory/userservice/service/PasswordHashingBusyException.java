@@ -0,0 +1,20 @@
+package com.laboratory.userservice.service;
+
+import java.time.Duration;
+
+/**
+ * El pool de hash de contraseñas está saturado; el cliente debe reintentar pasado {@link #getRetryAfter()}.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter) {
+        super("Password hashing is saturated, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
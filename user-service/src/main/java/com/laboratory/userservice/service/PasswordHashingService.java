@@ -0,0 +1,199 @@
+package com.laboratory.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hash BCrypt fuera de los hilos de petición, en un pool de tantos hilos como núcleos.
+ *
+ * La admisión está acotada (hilos + cola): una petición interactiva (registro, login, cambio de
+ * contraseña) que no encuentra hueco falla en el acto con {@link PasswordHashingBusyException} en
+ * lugar de esperar. Las cargas masivas (importación, datos semilla) esperan turno y nunca ocupan más
+ * que los hilos del pool, así que siempre queda cola libre para las interactivas.
+ *
+ * El factor de coste se calibra al arrancar para que un hash tarde como mucho target-hash-time en
+ * esta máquina; los hashes guardados con un coste menor se rehacen en el siguiente login correcto.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final Duration hashTime;
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore admission;
+    private final Semaphore bulkAdmission;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+    private final PasswordEncoder passwordEncoder = new HashingPasswordEncoder();
+
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${app.security.password.target-hash-time:250ms}") Duration targetHashTime,
+                                  @Value("${app.security.password.min-strength:10}") int minStrength,
+                                  @Value("${app.security.password.max-strength:16}") int maxStrength,
+                                  @Value("${app.security.password.threads:0}") int threads,
+                                  @Value("${app.security.password.queue-capacity:64}") int queueCapacity) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        // Cada punto de coste duplica el tiempo: se mide el mínimo y se sube mientras quepa en el objetivo
+        measure(4); // calentamiento
+        long nanos = measure(minStrength).toNanos();
+        int calibrated = minStrength;
+        while (calibrated < maxStrength && nanos * 2 <= targetHashTime.toNanos()) {
+            calibrated++;
+            nanos *= 2;
+        }
+        this.strength = calibrated;
+        this.hashTime = Duration.ofNanos(nanos);
+        this.encoder = new BCryptPasswordEncoder(strength);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.admission = new Semaphore(this.threads + queueCapacity);
+        this.bulkAdmission = new Semaphore(this.threads);
+
+        this.encodeTimer = Timer.builder("password.hashing.duration").tag("operation", "encode")
+                .description("Tiempo de CPU de BCrypt por operación").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration").tag("operation", "matches")
+                .description("Tiempo de CPU de BCrypt por operación").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Peticiones rechazadas por pool saturado").register(meterRegistry);
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Hashes esperando hilo").register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.strength", this, service -> service.strength)
+                .register(meterRegistry);
+
+        logger.info("Hash de contraseñas: BCrypt coste {} (~{} ms por hash), {} hilos, cola de {}",
+                strength, hashTime.toMillis(), this.threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // PasswordEncoder que pasa por el pool: lo usan el AuthenticationProvider y UserService
+    public PasswordEncoder passwordEncoder() {
+        return passwordEncoder;
+    }
+
+    public int strength() {
+        return strength;
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> encodeTimer.record(() -> encoder.encode(rawPassword))));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> matchesTimer.record(() -> encoder.matches(rawPassword, encodedPassword))));
+    }
+
+    // Carga masiva: espera turno en lugar de fallar, con como mucho `threads` hashes en vuelo
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            bulkAdmission.acquire();
+            admission.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for password hashing", e);
+        }
+        return execute(() -> encodeTimer.record(() -> encoder.encode(rawPassword)))
+                .whenComplete((hash, error) -> bulkAdmission.release());
+    }
+
+    // Coste del hash guardado menor que el calibrado; no se rehace si el pool no tiene hueco
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword) && admission.availablePermits() > threads;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfter());
+        }
+        return execute(task);
+    }
+
+    // Con el permiso de admisión ya tomado; se libera al terminar
+    private <T> CompletableFuture<T> execute(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((result, error) -> admission.release());
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw e;
+        }
+    }
+
+    // Tiempo aproximado para vaciar la cola actual, al menos un segundo
+    private Duration retryAfter() {
+        long queuedHashes = executor.getQueue().size() + (long) executor.getActiveCount();
+        long millis = queuedHashes * hashTime.toMillis() / threads;
+        return Duration.ofSeconds(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis) + 1));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static Duration measure(int strength) {
+        BCryptPasswordEncoder candidate = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        candidate.encode("calibration");
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private final class HashingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return PasswordHashingService.this.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return PasswordHashingService.this.matches(rawPassword, encodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return PasswordHashingService.this.upgradeEncoding(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.repository.PermissionRepository;
+import com.laboratory.userservice.repository.RoleRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantiene la {@link RbacSnapshot} vigente. Se carga al arrancar (después de DataInitializer)
+ * y se reemplaza de forma atómica cuando se confirma un cambio de roles o permisos.
+ */
+@Service
+public class RbacService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RbacService.class);
+
+    private final RoleRepository roleRepository;
+    private final PermissionRepository permissionRepository;
+    private final AuthenticationCache authenticationCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<RbacSnapshot> snapshot = new AtomicReference<>();
+
+    public RbacService(RoleRepository roleRepository,
+                       PermissionRepository permissionRepository,
+                       AuthenticationCache authenticationCache,
+                       ApplicationEventPublisher eventPublisher) {
+        this.roleRepository = roleRepository;
+        this.permissionRepository = permissionRepository;
+        this.authenticationCache = authenticationCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public RbacSnapshot current() {
+        RbacSnapshot current = snapshot.get();
+        return current != null ? current : refresh();
+    }
+
+    @Timed(value = "rbac.authorities", description = "Resolución de roles y permisos desde la foto RBAC")
+    public Set<GrantedAuthority> authoritiesFor(Collection<RoleName> roleNames) {
+        return current().authorities(RbacSnapshot.roleMask(roleNames));
+    }
+
+    // Crear o actualizar un rol; la foto se recarga al confirmar la transacción
+    @Transactional
+    public Role saveRole(Role role) {
+        Role saved = roleRepository.save(role);
+        eventPublisher.publishEvent(new RbacChangedEvent());
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRbacChanged(RbacChangedEvent event) {
+        refresh();
+    }
+
+    @Timed(value = "rbac.refresh", description = "Recarga de la foto RBAC")
+    public RbacSnapshot refresh() {
+        RbacSnapshot loaded = new RbacSnapshot(roleRepository.findAllWithPermissions(), permissionRepository.findAll());
+        snapshot.set(loaded);
+        // Los UserDetails cacheados tienen authorities calculadas con la foto anterior
+        authenticationCache.invalidateAll();
+        logger.info("Foto RBAC cargada: {} roles", loaded.roles().size());
+        return loaded;
+    }
+
+    public record RbacChangedEvent() {}
+}
@@ -0,0 +1,178 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.dto.RoleView;
+import com.laboratory.userservice.model.Permission;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Foto inmutable de roles y permisos.
+ *
+ * Cada permiso recibe un índice de bit y cada rol (por ordinal de {@link RoleName}) guarda el
+ * bitset de sus permisos. Las authorities de un conjunto de roles se calculan una sola vez por
+ * combinación de roles y se reutilizan, también como bitset (roles por ordinal y después permisos)
+ * para las comprobaciones por lote.
+ */
+public final class RbacSnapshot {
+
+    private static final RoleName[] ROLE_NAMES = RoleName.values();
+    private static final Map<String, RoleName> ROLES_BY_NAME = new HashMap<>();
+
+    static {
+        for (RoleName roleName : ROLE_NAMES) {
+            ROLES_BY_NAME.put(roleName.name(), roleName);
+        }
+    }
+
+    private final List<Role> roles;
+    private final Role[] rolesByOrdinal;
+    private final List<RoleView> roleViews;
+    private final RoleView[] roleViewsByOrdinal;
+    private final String[] permissionNames;
+    private final Map<String, Integer> permissionIndex;
+    private final BitSet[] rolePermissions;
+    private final GrantedAuthority[] roleAuthorities;
+    private final GrantedAuthority[] permissionAuthorities;
+    private final Map<Integer, Set<GrantedAuthority>> authoritiesByRoleMask = new ConcurrentHashMap<>();
+    private final Map<Integer, BitSet> authorityBitsByRoleMask = new ConcurrentHashMap<>();
+
+    public RbacSnapshot(Collection<Role> roles, Collection<Permission> permissions) {
+        this.permissionNames = permissions.stream()
+                .map(Permission::getName)
+                .sorted()
+                .toArray(String[]::new);
+        this.permissionIndex = new HashMap<>();
+        this.permissionAuthorities = new GrantedAuthority[permissionNames.length];
+        for (int i = 0; i < permissionNames.length; i++) {
+            permissionIndex.put(permissionNames[i], i);
+            permissionAuthorities[i] = new SimpleGrantedAuthority(permissionNames[i]);
+        }
+
+        this.rolesByOrdinal = new Role[ROLE_NAMES.length];
+        this.rolePermissions = new BitSet[ROLE_NAMES.length];
+        this.roleAuthorities = new GrantedAuthority[ROLE_NAMES.length];
+        for (RoleName roleName : ROLE_NAMES) {
+            rolePermissions[roleName.ordinal()] = new BitSet(permissionNames.length);
+            roleAuthorities[roleName.ordinal()] = new SimpleGrantedAuthority(roleName.name());
+        }
+        for (Role role : roles) {
+            int ordinal = role.getName().ordinal();
+            rolesByOrdinal[ordinal] = role;
+            role.getPermissions().forEach(permission -> {
+                Integer bit = permissionIndex.get(permission.getName());
+                if (bit != null) {
+                    rolePermissions[ordinal].set(bit);
+                }
+            });
+        }
+
+        this.roles = roles.stream()
+                .sorted(Comparator.comparing(Role::getName))
+                .toList();
+
+        // Vistas de la API calculadas una vez por foto
+        this.roleViews = this.roles.stream().map(RoleView::from).toList();
+        this.roleViewsByOrdinal = new RoleView[ROLE_NAMES.length];
+        roleViews.forEach(view -> roleViewsByOrdinal[view.name().ordinal()] = view);
+    }
+
+    public static RbacSnapshot empty() {
+        return new RbacSnapshot(List.of(), List.of());
+    }
+
+    public List<Role> roles() {
+        return roles;
+    }
+
+    public Optional<Role> role(RoleName roleName) {
+        return Optional.ofNullable(rolesByOrdinal[roleName.ordinal()]);
+    }
+
+    public List<RoleView> roleViews() {
+        return roleViews;
+    }
+
+    public Optional<RoleView> roleView(RoleName roleName) {
+        return Optional.ofNullable(roleViewsByOrdinal[roleName.ordinal()]);
+    }
+
+    // Bitset de roles (un bit por ordinal de RoleName)
+    public static int roleMask(Collection<RoleName> roleNames) {
+        int mask = 0;
+        for (RoleName roleName : roleNames) {
+            mask |= 1 << roleName.ordinal();
+        }
+        return mask;
+    }
+
+    // Bitset de los roles presentes en unas authorities (p. ej. las del token); el resto se ignora
+    public static int roleMaskOf(Collection<? extends GrantedAuthority> authorities) {
+        int mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            RoleName roleName = ROLES_BY_NAME.get(authority.getAuthority());
+            if (roleName != null) {
+                mask |= 1 << roleName.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    // Roles + permisos de los roles, sin consultas
+    public Set<GrantedAuthority> authorities(int roleMask) {
+        return authoritiesByRoleMask.computeIfAbsent(roleMask, this::computeAuthorities);
+    }
+
+    // Índice de una authority en authorityBits: roles por ordinal, permisos a continuación; -1 si no existe
+    public int authorityBit(String authority) {
+        RoleName roleName = ROLES_BY_NAME.get(authority);
+        if (roleName != null) {
+            return roleName.ordinal();
+        }
+        Integer bit = permissionIndex.get(authority);
+        return bit != null ? ROLE_NAMES.length + bit : -1;
+    }
+
+    // authorities(roleMask) como bitset indexado por authorityBit (no modificar)
+    public BitSet authorityBits(int roleMask) {
+        return authorityBitsByRoleMask.computeIfAbsent(roleMask, this::computeAuthorityBits);
+    }
+
+    public boolean hasPermission(RoleName roleName, String permission) {
+        Integer bit = permissionIndex.get(permission);
+        return bit != null && rolePermissions[roleName.ordinal()].get(bit);
+    }
+
+    private Set<GrantedAuthority> computeAuthorities(int roleMask) {
+        BitSet permissions = new BitSet(permissionNames.length);
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (RoleName roleName : ROLE_NAMES) {
+            if ((roleMask & (1 << roleName.ordinal())) != 0) {
+                authorities.add(roleAuthorities[roleName.ordinal()]);
+                permissions.or(rolePermissions[roleName.ordinal()]);
+            }
+        }
+        for (int bit = permissions.nextSetBit(0); bit >= 0; bit = permissions.nextSetBit(bit + 1)) {
+            authorities.add(permissionAuthorities[bit]);
+        }
+        return Collections.unmodifiableSet(authorities);
+    }
+
+    private BitSet computeAuthorityBits(int roleMask) {
+        BitSet bits = new BitSet(ROLE_NAMES.length + permissionNames.length);
+        for (RoleName roleName : ROLE_NAMES) {
+            if ((roleMask & (1 << roleName.ordinal())) != 0) {
+                bits.set(roleName.ordinal());
+                BitSet permissions = rolePermissions[roleName.ordinal()];
+                for (int bit = permissions.nextSetBit(0); bit >= 0; bit = permissions.nextSetBit(bit + 1)) {
+                    bits.set(ROLE_NAMES.length + bit);
+                }
+            }
+        }
+        return bits;
+    }
+}
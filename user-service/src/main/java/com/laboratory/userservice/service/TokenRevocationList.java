@@ -0,0 +1,62 @@
+package com.laboratory.userservice.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Lista en memoria de tokens revocados, agrupada en buckets de un minuto según la expiración
+ * del token. Un token revocado solo necesita recordarse hasta que expira, así que los buckets
+ * vencidos se descartan completos sin recorrer sus entradas.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final long BUCKET_SECONDS = 60;
+
+    private final ConcurrentNavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokeIfAbsent(tokenId, expiresAt);
+    }
+
+    /**
+     * Revoca el token y devuelve true solo si esta llamada lo revocó (comprobar y revocar en un paso):
+     * de varias peticiones concurrentes con el mismo token, solo una obtiene true. false también para
+     * tokens sin id o ya expirados.
+     */
+    public boolean revokeIfAbsent(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return false;
+        }
+        boolean added = buckets.computeIfAbsent(bucketOf(expiresAt), bucket -> ConcurrentHashMap.newKeySet())
+                .add(tokenId);
+        purgeExpired();
+        return added;
+    }
+
+    public boolean isRevoked(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(expiresAt));
+        return bucket != null && bucket.contains(tokenId);
+    }
+
+    // Eliminar los buckets cuyos tokens ya expiraron
+    public void purgeExpired() {
+        buckets.headMap(bucketOf(Instant.now())).clear();
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static long bucketOf(Instant instant) {
+        return instant.getEpochSecond() / BUCKET_SECONDS;
+    }
+}
@@ -0,0 +1,161 @@
+package com.laboratory.userservice.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Emisión, renovación y revocación de tokens JWT firmados con RS256.
+ *
+ * El access token lleva los roles y permisos del usuario en el claim {@code authorities},
+ * de modo que los servicios (y el api-gateway, vía el JWK set publicado) autorizan con
+ * solo verificar la firma.
+ */
+@Service
+public class TokenService {
+
+    public static final String AUTHORITIES_CLAIM = "authorities";
+    public static final String TOKEN_USE_CLAIM = "token_use";
+
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+
+    private final RSAKey signingKey;
+    private final JwtEncoder jwtEncoder;
+    private final TokenRevocationList revocationList;
+    private final CustomUserDetailsService userDetailsService;
+    private final AuthenticationCache authenticationCache;
+    private final String issuer;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+
+    private final JwtDecoder accessTokenDecoder;
+    private final JwtDecoder refreshTokenDecoder;
+    private final JwtDecoder anyTokenDecoder;
+
+    public TokenService(RSAKey signingKey,
+                        JwtEncoder jwtEncoder,
+                        TokenRevocationList revocationList,
+                        CustomUserDetailsService userDetailsService,
+                        AuthenticationCache authenticationCache,
+                        @Value("${app.security.jwt.issuer:user-service}") String issuer,
+                        @Value("${app.security.jwt.access-token-ttl:15m}") Duration accessTokenTtl,
+                        @Value("${app.security.jwt.refresh-token-ttl:8h}") Duration refreshTokenTtl) throws JOSEException {
+        this.signingKey = signingKey;
+        this.jwtEncoder = jwtEncoder;
+        this.revocationList = revocationList;
+        this.userDetailsService = userDetailsService;
+        this.authenticationCache = authenticationCache;
+        this.issuer = issuer;
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+
+        this.accessTokenDecoder = decoder(signingKey, ACCESS);
+        this.refreshTokenDecoder = decoder(signingKey, REFRESH);
+        this.anyTokenDecoder = decoder(signingKey, null);
+    }
+
+    // Emitir access + refresh token para un usuario ya autenticado
+    public IssuedTokens issueTokens(UserDetails user) {
+        List<String> authorities = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .toList();
+
+        Instant now = Instant.now();
+        String accessToken = encode(JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(user.getUsername())
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiresAt(now.plus(accessTokenTtl))
+                .claim(TOKEN_USE_CLAIM, ACCESS)
+                .claim(AUTHORITIES_CLAIM, authorities)
+                .build());
+        String refreshToken = encode(JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(user.getUsername())
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiresAt(now.plus(refreshTokenTtl))
+                .claim(TOKEN_USE_CLAIM, REFRESH)
+                .build());
+
+        return new IssuedTokens(accessToken, refreshToken, accessTokenTtl.toSeconds());
+    }
+
+    // Renovar: el refresh token se rota y los roles se vuelven a resolver. Se consume antes de nada con
+    // una revocación atómica: un mismo refresh token presentado dos veces (reutilización o carrera) solo
+    // renueva una vez
+    public IssuedTokens refresh(String refreshToken) {
+        Jwt jwt = refreshTokenDecoder.decode(refreshToken);
+        if (!revocationList.revokeIfAbsent(jwt.getId(), jwt.getExpiresAt())) {
+            throw new BadJwtException("Refresh token has already been used");
+        }
+
+        UserDetails user = authenticationCache.getUserFromCache(jwt.getSubject());
+        if (user == null) {
+            user = userDetailsService.loadUserByUsername(jwt.getSubject());
+            authenticationCache.putUserInCache(user);
+        }
+        if (!user.isEnabled()) {
+            throw new DisabledException("User is disabled: " + jwt.getSubject());
+        }
+        return issueTokens(user);
+    }
+
+    // Revocar un access o refresh token hasta su expiración. La lista vive en la memoria de esta instancia:
+    // el api-gateway valida los access tokens localmente con el JWK set y no la consulta, así que un
+    // access token revocado sigue pasando por el gateway hasta que expira (access-token-ttl)
+    public void revoke(String token) {
+        Jwt jwt = anyTokenDecoder.decode(token);
+        revocationList.revoke(jwt.getId(), jwt.getExpiresAt());
+    }
+
+    public JwtDecoder accessTokenDecoder() {
+        return accessTokenDecoder;
+    }
+
+    public Map<String, Object> jwkSet() {
+        return new JWKSet(signingKey.toPublicJWK()).toJSONObject();
+    }
+
+    private String encode(JwtClaimsSet claims) {
+        JwsHeader header = JwsHeader.with(SignatureAlgorithm.RS256).keyId(signingKey.getKeyID()).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    private JwtDecoder decoder(RSAKey key, String tokenUse) throws JOSEException {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+
+        OAuth2TokenValidator<Jwt> notRevoked = jwt -> revocationList.isRevoked(jwt.getId(), jwt.getExpiresAt())
+                ? OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "Token has been revoked", null))
+                : OAuth2TokenValidatorResult.success();
+
+        OAuth2TokenValidator<Jwt> validator = tokenUse == null
+                ? new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefaultWithIssuer(issuer), notRevoked)
+                : new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefaultWithIssuer(issuer), notRevoked,
+                new JwtClaimValidator<String>(TOKEN_USE_CLAIM, tokenUse::equals));
+        decoder.setJwtValidator(validator);
+        return decoder;
+    }
+
+    public record IssuedTokens(String accessToken, String refreshToken, long expiresIn) {}
+}
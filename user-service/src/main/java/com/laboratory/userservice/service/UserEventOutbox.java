@@ -0,0 +1,66 @@
+package com.laboratory.userservice.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.laboratory.userservice.dto.UserView;
+import com.laboratory.userservice.model.OutboxEvent;
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.model.UserEventType;
+import com.laboratory.userservice.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Escribe los cambios de usuario en la tabla outbox dentro de la transacción del cambio: el evento
+ * existe si y solo si el cambio se confirmó. {@link OutboxRelay} los publica después en Kafka.
+ *
+ * Cada evento lleva el estado completo del usuario ({@link UserView}, sin contraseña) con el id como
+ * clave, de modo que en un topic compactado el último mensaje por clave es la réplica vigente.
+ *
+ * El payload incluye {@code version} (User.version, también en la cabecera aggregate-version; en el
+ * tombstone, la última versión + 1). Los consumidores deben descartar los mensajes con una versión
+ * menor que la que ya aplicaron para ese usuario: el relay publica en orden de versión, pero
+ * tras un reinicio o un reintento puede llegar un estado anterior después de uno más nuevo.
+ */
+@Component
+public class UserEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectWriter payloadWriter;
+
+    public UserEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.payloadWriter = objectMapper.writerFor(Payload.class);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    // La versión debe ser la ya escrita: llamar tras el flush del cambio
+    public void record(User user, UserEventType type) {
+        record(UserView.from(user), user.getVersion(), type);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(UserView user, long version, UserEventType type) {
+        String payload;
+        try {
+            payload = payloadWriter.writeValueAsString(new Payload(version, user));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize user event", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(user.id().toString(), version, type, payload, Instant.now()));
+    }
+
+    // Tombstone: la compactación termina eliminando la clave del topic
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(User user) {
+        outboxEventRepository.save(new OutboxEvent(user.getId().toString(), user.getVersion() + 1,
+                UserEventType.DELETED, null, Instant.now()));
+    }
+
+    private record Payload(long version, @JsonUnwrapped UserView user) {}
+}
@@ -0,0 +1,363 @@
+package com.laboratory.userservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laboratory.userservice.dto.ImportResult;
+import com.laboratory.userservice.dto.UserView;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.model.UserEventType;
+import com.laboratory.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Importación masiva de usuarios desde CSV o NDJSON leídos en streaming.
+ *
+ * Por cada bloque: una consulta para detectar usernames/emails existentes (solo los que
+ * {@link CredentialFilter} no descarta), hash de contraseñas
+ * en paralelo ({@link PasswordHashingService}) y un insert por lotes JDBC en una transacción. Un bloque que falla al insertar se
+ * reintenta fila a fila para aislar el error. Cada usuario creado deja su evento en el outbox en la
+ * misma transacción.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final RbacService rbacService;
+    private final AuthenticationCache authenticationCache;
+    private final UserEventOutbox userEventOutbox;
+    private final CredentialFilter credentialFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserImportService(UserRepository userRepository,
+                             PasswordHashingService passwordHashingService,
+                             RbacService rbacService,
+                             AuthenticationCache authenticationCache,
+                             UserEventOutbox userEventOutbox,
+                             CredentialFilter credentialFilter,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.users.import.chunk-size:500}") int chunkSize,
+                             @Value("${app.users.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.rbacService = rbacService;
+        this.authenticationCache = authenticationCache;
+        this.userEventOutbox = userEventOutbox;
+        this.credentialFilter = credentialFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportResult importUsers(InputStream body, Format format) throws IOException {
+        Progress progress = new Progress(maxReportedErrors);
+        // Usernames y emails ya vistos en esta importación (duplicados dentro del archivo)
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            String[] header = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line).stream().map(String::trim).toArray(String[]::new);
+                    continue;
+                }
+
+                ImportRow row;
+                try {
+                    row = format == Format.CSV ? fromCsv(lineNumber, header, line) : fromJson(lineNumber, line);
+                    row.validate();
+                } catch (RuntimeException e) {
+                    progress.fail(lineNumber, null, e.getMessage());
+                    continue;
+                }
+                if (!seenUsernames.add(row.username())) {
+                    progress.fail(lineNumber, row.username(), "Duplicate username in import: " + row.username());
+                    continue;
+                }
+                if (!seenEmails.add(row.email())) {
+                    progress.fail(lineNumber, row.username(), "Duplicate email in import: " + row.email());
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, progress);
+            }
+        }
+
+        logger.info("Importación de usuarios: {} creados, {} con error", progress.imported, progress.failed);
+        return progress.toResult();
+    }
+
+    private void importChunk(List<ImportRow> chunk, Progress progress) {
+        // 1. Descartar usernames/emails que ya existen (una consulta por bloque, solo con los que el
+        //    filtro no descarta; sin ninguno no hay consulta)
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        chunk.forEach(row -> {
+            if (credentialFilter.mightContain(CredentialFilter.Kind.USERNAME, row.username())) {
+                usernames.add(row.username());
+            }
+            if (credentialFilter.mightContain(CredentialFilter.Kind.EMAIL, row.email())) {
+                emails.add(row.email());
+            }
+        });
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        if (!usernames.isEmpty() || !emails.isEmpty()) {
+            // Una lista IN vacía no es SQL válido en todas las BD
+            for (Object[] existing : userRepository.findExistingCredentials(
+                    usernames.isEmpty() ? Set.of("") : usernames, emails.isEmpty() ? Set.of("") : emails)) {
+                existingUsernames.add((String) existing[0]);
+                existingEmails.add((String) existing[1]);
+            }
+        }
+
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existingUsernames.contains(row.username())) {
+                progress.fail(row.line(), row.username(), "Username already exists: " + row.username());
+            } else if (existingEmails.contains(row.email())) {
+                progress.fail(row.line(), row.username(), "Email already exists: " + row.email());
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 2. Hash de contraseñas en paralelo en el pool de hash (espera turno, no se rechaza)
+        List<Future<String>> hashes = new ArrayList<>(accepted.size());
+        for (ImportRow row : accepted) {
+            hashes.add(passwordHashingService.encodeAsync(row.password()));
+        }
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(accepted.get(i).toUser(await(hashes.get(i))));
+        }
+
+        // 3. Insert por lotes en una transacción; si falla, fila a fila
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(users, accepted));
+            progress.imported += users.size();
+        } catch (RuntimeException e) {
+            logger.warn("Falló el insert por lotes, reintentando fila a fila: {}", e.getMessage());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                ImportRow row = accepted.get(i);
+                user.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(user), List.of(row)));
+                    progress.imported++;
+                } catch (RuntimeException rowError) {
+                    progress.fail(row.line(), row.username(), rootMessage(rowError));
+                }
+            }
+        }
+        users.forEach(user -> authenticationCache.invalidate(user.getUsername()));
+    }
+
+    private void persist(List<User> users, List<ImportRow> rows) {
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            // Referencias a roles por id desde la foto RBAC: sin consultas
+            Set<Role> roles = new HashSet<>();
+            for (RoleName roleName : rows.get(i).roles()) {
+                Role role = rbacService.current().role(roleName)
+                        .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
+                roles.add(entityManager.getReference(Role.class, role.getId()));
+            }
+            user.setRoles(roles);
+            entityManager.persist(user);
+            // Evento con los roles de la fila: sin inicializar las referencias
+            userEventOutbox.record(new UserView(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getFirstName(), user.getLastName(), user.isEnabled(), rows.get(i).roles()),
+                    user.getVersion(), UserEventType.CREATED);
+            credentialFilter.add(user.getUsername(), user.getEmail());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    // Parsing de filas
+
+    private ImportRow fromJson(long line, String json) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        node.path("roles").forEach(role -> roles.add(RoleName.valueOf(role.asText())));
+        return new ImportRow(line, text(node, "username"), text(node, "password"), text(node, "email"),
+                text(node, "firstName"), text(node, "lastName"), roles);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static ImportRow fromCsv(long line, String[] header, String csv) {
+        List<String> values = parseCsvLine(csv);
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+            fields.put(header[i], values.get(i).trim());
+        }
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        String roleList = fields.get("roles");
+        if (StringUtils.hasText(roleList)) {
+            for (String role : roleList.split("\\|")) {
+                roles.add(RoleName.valueOf(role.trim()));
+            }
+        }
+        return new ImportRow(line, fields.get("username"), fields.get("password"), fields.get("email"),
+                fields.get("firstName"), fields.get("lastName"), roles);
+    }
+
+    // CSV con comillas dobles opcionales ("" escapa una comilla)
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record ImportRow(long line, String username, String password, String email,
+                             String firstName, String lastName, Set<RoleName> roles) {
+
+        void validate() {
+            if (!StringUtils.hasText(username)) {
+                throw new RuntimeException("Username is required");
+            }
+            if (!StringUtils.hasText(password)) {
+                throw new RuntimeException("Password is required");
+            }
+            if (!StringUtils.hasText(email)) {
+                throw new RuntimeException("Email is required");
+            }
+        }
+
+        User toUser(String encodedPassword) {
+            User user = new User(username, encodedPassword, email);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setEnabled(true);
+            return user;
+        }
+
+        @Override
+        public Set<RoleName> roles() {
+            return roles.isEmpty() ? Set.of(RoleName.ROLE_USER) : roles;
+        }
+    }
+
+    private static final class Progress {
+        private final int maxReportedErrors;
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private Progress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(long line, String username, String error) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResult.RowError(line, username, error));
+            }
+        }
+
+        ImportResult toResult() {
+            return new ImportResult(imported, failed, errors, failed > errors.size());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.laboratory.userservice.service;
+
+/**
+ * No existe un usuario con el id pedido.
+ */
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(Long userId) {
+        super("User not found: " + userId);
+    }
+}
@@ -1,29 +1,57 @@
 package com.laboratory.userservice.service;
 
+import com.laboratory.userservice.dto.CursorPage;
+import com.laboratory.userservice.dto.UserRow;
+import com.laboratory.userservice.dto.UserView;
 import com.laboratory.userservice.model.Role;
 import com.laboratory.userservice.model.RoleName;
 import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.model.UserEventType;
 import com.laboratory.userservice.repository.RoleRepository;
 import com.laboratory.userservice.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "user.service", description = "Operaciones de UserService (tags class, method)")
 public class UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
+    private final UserEventOutbox userEventOutbox;
+    private final CredentialFilter credentialFilter;
+    private final TransactionTemplate transactionTemplate;
 
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository,
+                       PasswordEncoder passwordEncoder, AuthenticationCache authenticationCache,
+                       UserEventOutbox userEventOutbox, CredentialFilter credentialFilter,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.authenticationCache = authenticationCache;
+        this.userEventOutbox = userEventOutbox;
+        this.credentialFilter = credentialFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    // Cada mutación escribe su evento en el outbox en la misma transacción (UserEventOutbox), después del
+    // flush para que lleve la versión ya incrementada.
+    // Las que hashean contraseña lo hacen antes de abrirla para no retener la conexión durante BCrypt
+
     // Crear usuario con roles básicos
     public User createUser(User user) {
         return createUserWithRoles(user, Set.of(RoleName.ROLE_USER));
@@ -31,25 +59,49 @@ public class UserService {
 
     // Crear usuario con roles específicos
     public User createUserWithRoles(User user, Set<RoleName> roleNames) {
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Username already exists: " + user.getUsername());
+        // Los valores que el filtro no conoce no se consultan; la restricción única cubre lo que se le escape
+        if (credentialFilter.exists(CredentialFilter.Kind.USERNAME, user.getUsername(), userRepository::existsByUsername)) {
+            throw new DuplicateCredentialException("Username already exists: " + user.getUsername());
         }
 
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Email already exists: " + user.getEmail());
+        if (credentialFilter.exists(CredentialFilter.Kind.EMAIL, user.getEmail(), userRepository::existsByEmail)) {
+            throw new DuplicateCredentialException("Email already exists: " + user.getEmail());
         }
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setEnabled(true);
 
+        try {
+            return transactionTemplate.execute(status -> insert(user, roleNames));
+        } catch (DataIntegrityViolationException e) {
+            if (!DuplicateCredentialException.isUniqueViolation(e)) {
+                throw e;
+            }
+            // Alta concurrente o hecha en otra instancia: el filtro no la conocía
+            if (userRepository.existsByUsername(user.getUsername())) {
+                credentialFilter.add(user.getUsername(), null);
+                throw new DuplicateCredentialException("Username already exists: " + user.getUsername());
+            }
+            if (userRepository.existsByEmail(user.getEmail())) {
+                credentialFilter.add(null, user.getEmail());
+                throw new DuplicateCredentialException("Email already exists: " + user.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    private User insert(User user, Set<RoleName> roleNames) {
         // Asignar roles
         Set<Role> roles = roleNames.stream()
                 .map(roleName -> roleRepository.findByName(roleName)
-                        .orElseThrow(() -> new RuntimeException("Role not found: " + roleName)))
+                        .orElseThrow(() -> new IllegalArgumentException("Role not found: " + roleName)))
                 .collect(Collectors.toSet());
 
         user.setRoles(roles);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userEventOutbox.record(saved, UserEventType.CREATED);
+        credentialFilter.add(saved.getUsername(), saved.getEmail());
+        return saved;
     }
 
     // Obtener usuario por username
@@ -62,6 +114,33 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    // Vistas de lectura (proyecciones, sin entidades)
+    @Transactional(readOnly = true)
+    public Optional<UserView> findById(Long userId) {
+        return first(userRepository.findRowsById(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserView> findViewByUsername(String username) {
+        return first(userRepository.findRowsByUsername(username));
+    }
+
+    // Obtener usuarios paginados por cursor
+    @Transactional(readOnly = true)
+    public CursorPage<UserView> findUsers(long afterId, int limit) {
+        return page(userRepository.findIdsAfter(afterId, Limit.of(limit)), limit);
+    }
+
+    // Recorrer todos los usuarios sin cargarlos en memoria: cada usuario se emite al leer su última fila
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<UserView> action) {
+        UserView.Folder folder = new UserView.Folder(action);
+        try (Stream<UserRow> rows = userRepository.streamRowsOrderById()) {
+            rows.forEach(folder);
+        }
+        folder.finish();
+    }
+
     // Verificar si usuario tiene un rol específico
     public boolean hasRole(Long userId, RoleName roleName) {
         return userRepository.findById(userId)
@@ -71,62 +150,115 @@ public class UserService {
     }
 
     // Asignar rol adicional a usuario
+    @Transactional
     public User addRoleToUser(Long userId, RoleName roleName) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+                .orElseThrow(() -> new UserNotFoundException(userId));
 
         Role role = roleRepository.findByName(roleName)
                 .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
 
         user.getRoles().add(role);
-        return userRepository.save(user);
+        User saved = userRepository.saveAndFlush(user);
+        userEventOutbox.record(saved, UserEventType.ROLES_CHANGED);
+        authenticationCache.invalidate(saved.getUsername());
+        return saved;
     }
 
     // Remover rol de usuario
+    @Transactional
     public User removeRoleFromUser(Long userId, RoleName roleName) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+                .orElseThrow(() -> new UserNotFoundException(userId));
 
         user.getRoles().removeIf(role -> role.getName() == roleName);
-        return userRepository.save(user);
+        User saved = userRepository.saveAndFlush(user);
+        userEventOutbox.record(saved, UserEventType.ROLES_CHANGED);
+        authenticationCache.invalidate(saved.getUsername());
+        return saved;
     }
 
     // Actualizar usuario
+    @Transactional
     public User updateUser(Long userId, User userDetails) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+                .orElseThrow(() -> new UserNotFoundException(userId));
 
+        String oldEmail = user.getEmail();
+        boolean emailChanged = !Objects.equals(oldEmail, userDetails.getEmail());
+        if (emailChanged && credentialFilter.exists(CredentialFilter.Kind.EMAIL, userDetails.getEmail(),
+                userRepository::existsByEmail)) {
+            throw new DuplicateCredentialException("Email already exists: " + userDetails.getEmail());
+        }
         user.setEmail(userDetails.getEmail());
         user.setFirstName(userDetails.getFirstName());
         user.setLastName(userDetails.getLastName());
         user.setEnabled(userDetails.isEnabled());
 
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Mismo email confirmado por otra transacción entre la comprobación y el flush
+            if (emailChanged && DuplicateCredentialException.isUniqueViolation(e)) {
+                throw new DuplicateCredentialException("Email already exists: " + userDetails.getEmail());
+            }
+            throw e;
+        }
+        if (emailChanged) {
+            credentialFilter.remove(null, oldEmail);
+            credentialFilter.add(null, userDetails.getEmail());
+        }
+        userEventOutbox.record(saved, UserEventType.UPDATED);
+        authenticationCache.invalidate(saved.getUsername());
+        return saved;
     }
 
     // Eliminar usuario
-    public void deleteUser(Long userId) {
+    @Transactional
+    public User deleteUser(Long userId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+                .orElseThrow(() -> new UserNotFoundException(userId));
         userRepository.delete(user);
+        userEventOutbox.recordDeleted(user);
+        credentialFilter.remove(user.getUsername(), user.getEmail());
+        authenticationCache.invalidate(user.getUsername());
+        return user;
     }
 
     // Cambiar contraseña
     public User changePassword(Long userId, String newPassword) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+        String encoded = passwordEncoder.encode(newPassword);
+
+        User saved = transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new UserNotFoundException(userId));
 
-        user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user);
+            user.setPassword(encoded);
+            User updated = userRepository.saveAndFlush(user);
+            userEventOutbox.record(updated, UserEventType.PASSWORD_CHANGED);
+            return updated;
+        });
+        authenticationCache.invalidate(saved.getUsername());
+        return saved;
     }
 
-    // Buscar usuarios por rol
-    public List<User> findUsersByRole(RoleName roleName) {
-        Role role = roleRepository.findByName(roleName)
+    // Buscar usuarios por rol (paginado por cursor)
+    @Transactional(readOnly = true)
+    public CursorPage<UserView> findUsersByRole(RoleName roleName, long afterId, int limit) {
+        roleRepository.findByName(roleName)
                 .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
 
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRoles().contains(role))
-                .collect(Collectors.toList());
+        return page(userRepository.findIdsByRoleNameAfter(roleName, afterId, Limit.of(limit)), limit);
+    }
+
+    // Ids de la página (keyset) + una consulta de filas con sus roles
+    private CursorPage<UserView> page(List<Long> ids, int limit) {
+        List<UserView> users = ids.isEmpty() ? List.of() : UserView.fold(userRepository.findRowsByIdIn(ids));
+        return CursorPage.of(users, limit, UserView::id);
+    }
+
+    private static Optional<UserView> first(List<UserRow> rows) {
+        return UserView.fold(rows).stream().findFirst();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.laboratory.userservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.laboratory.userservice.dto.UserView;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.repository.UserRepository;
+import com.laboratory.userservice.service.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trabajo en memoria por petición sobre un usuario ya cargado (supervisor: tres roles con permisos):
+ * resolución de authorities, {@link User#hasRole} y serialización JSON de la entidad (roles y permisos
+ * anidados) frente a la vista {@link UserView} con un writer precompilado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+	private ConfigurableApplicationContext context;
+	private CustomUserDetailsService userDetailsService;
+	private ObjectMapper objectMapper;
+	private ObjectWriter userViewWriter;
+	private User user;
+	private UserView userView;
+	private Set<Role> roles;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContexts.start("authorization");
+		userDetailsService = context.getBean(CustomUserDetailsService.class);
+		objectMapper = context.getBean(ObjectMapper.class);
+		// findByUsername carga roles y permisos (entity graph): la entidad queda completa al salir
+		user = context.getBean(UserRepository.class).findByUsername("supervisor").orElseThrow();
+		roles = user.getRoles();
+		userViewWriter = objectMapper.writerFor(UserView.class);
+		userView = UserView.from(user);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Collection<? extends GrantedAuthority> mapRolesAndPermissions() {
+		return userDetailsService.mapRolesAndPermissions(roles);
+	}
+
+	@Benchmark
+	public boolean userHasRole() {
+		return user.hasRole("ROLE_USER");
+	}
+
+	@Benchmark
+	public byte[] serializeUser() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(user);
+	}
+
+	@Benchmark
+	public byte[] serializeUserView() throws JsonProcessingException {
+		return userViewWriter.writeValueAsBytes(userView);
+	}
+}
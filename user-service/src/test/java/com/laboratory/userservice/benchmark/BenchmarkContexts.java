@@ -0,0 +1,94 @@
+package com.laboratory.userservice.benchmark;
+
+import com.laboratory.userservice.UserServiceApplication;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.service.RbacService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arranque de user-service para los benchmarks: H2 en memoria, sin servidor web ni SQL en consola,
+ * y un fixture de usuarios insertado por JDBC en lotes (mucho más rápido que pasar por JPA).
+ */
+final class BenchmarkContexts {
+
+	// Ids del fixture por encima de los que asigna users_seq a los datos semilla
+	static final long FIXTURE_FIRST_ID = 1_000_000L;
+
+	private static final int INSERT_BATCH_SIZE = 1_000;
+
+	// Roles adicionales a ROLE_USER, repartidos en rotación
+	private static final RoleName[] FIXTURE_ROLES = {
+			RoleName.ROLE_TECHNICIAN, RoleName.ROLE_VIEWER, RoleName.ROLE_SUPERVISOR
+	};
+
+	private BenchmarkContexts() {
+	}
+
+	static ConfigurableApplicationContext start(String database) {
+		return start(database, WebApplicationType.NONE);
+	}
+
+	static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType,
+			String... extraArgs) {
+		// Argumentos de línea de comandos: tienen prioridad sobre application.yml
+		List<String> args = new ArrayList<>(List.of(
+				"--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--logging.level.org.springframework.security=WARN"));
+		args.addAll(List.of(extraArgs));
+		return new SpringApplicationBuilder(UserServiceApplication.class)
+				.web(webApplicationType)
+				.run(args.toArray(String[]::new));
+	}
+
+	static String username(long index) {
+		return "bench" + index;
+	}
+
+	static long userId(long index) {
+		return FIXTURE_FIRST_ID + index;
+	}
+
+	// userCount usuarios, cada uno con ROLE_USER y un rol más
+	static void insertUsers(ConfigurableApplicationContext context, int userCount) {
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		RbacService rbac = context.getBean(RbacService.class);
+		long userRoleId = roleId(rbac, RoleName.ROLE_USER);
+		long[] extraRoleIds = new long[FIXTURE_ROLES.length];
+		for (int i = 0; i < FIXTURE_ROLES.length; i++) {
+			extraRoleIds[i] = roleId(rbac, FIXTURE_ROLES[i]);
+		}
+		String password = new BCryptPasswordEncoder(4).encode("bench123");
+
+		List<Object[]> users = new ArrayList<>(INSERT_BATCH_SIZE);
+		List<Object[]> userRoles = new ArrayList<>(INSERT_BATCH_SIZE * 2);
+		for (int i = 0; i < userCount; i++) {
+			long id = userId(i);
+			users.add(new Object[] { id, username(i), password, username(i) + "@bench.local", "Bench", "User " + i });
+			userRoles.add(new Object[] { id, userRoleId });
+			userRoles.add(new Object[] { id, extraRoleIds[i % extraRoleIds.length] });
+			if (users.size() == INSERT_BATCH_SIZE || i == userCount - 1) {
+				jdbc.batchUpdate("insert into users (id, username, password, email, first_name, last_name, enabled) "
+						+ "values (?, ?, ?, ?, ?, ?, true)", users);
+				jdbc.batchUpdate("insert into user_roles (user_id, role_id) values (?, ?)", userRoles);
+				users.clear();
+				userRoles.clear();
+			}
+		}
+	}
+
+	private static long roleId(RbacService rbac, RoleName roleName) {
+		return rbac.current().role(roleName)
+				.map(Role::getId)
+				.orElseThrow(() -> new IllegalStateException("Seed role missing: " + roleName));
+	}
+}
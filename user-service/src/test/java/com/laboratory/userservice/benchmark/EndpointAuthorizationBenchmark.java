@@ -0,0 +1,107 @@
+package com.laboratory.userservice.benchmark;
+
+import com.laboratory.userservice.config.EndpointAuthorizationManager;
+import com.laboratory.userservice.service.CustomUserDetailsService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Decisión de acceso de una petición de administrador (GET /api/users/1 o /api/roles/1, la última regla).
+ * Antes: requestMatchers con PathPatternRequestMatcher (recorridos en orden hasta el que coincide) más el
+ * @PreAuthorize("hasRole('ADMIN')") del controlador evaluado con SpEL.
+ * Después: {@link EndpointAuthorizationManager}, patrón por path y tabla de decisiones por bitset de roles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndpointAuthorizationBenchmark {
+
+	@Param({ "/api/users/1", "/api/roles/1" })
+	public String path;
+
+	private ConfigurableApplicationContext context;
+	private MockHttpServletRequest request;
+	private RequestAuthorizationContext requestContext;
+	private Supplier<Authentication> authentication;
+	private AuthorizationManager<HttpServletRequest> requestMatchers;
+	private PreAuthorizeAuthorizationManager preAuthorize;
+	private SimpleMethodInvocation invocation;
+	private EndpointAuthorizationManager endpointAuthorization;
+
+	@Setup(Level.Trial)
+	public void setUp() throws NoSuchMethodException {
+		context = BenchmarkContexts.start("endpoint-authorization", WebApplicationType.SERVLET, "--server.port=0");
+		request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		requestContext = new RequestAuthorizationContext(request);
+		Authentication admin = UsernamePasswordAuthenticationToken.authenticated("admin", null,
+				context.getBean(CustomUserDetailsService.class).loadUserByUsername("admin").getAuthorities());
+		authentication = () -> admin;
+
+		// Las mismas reglas que tenía SecurityConfig
+		AuthorizationManager<RequestAuthorizationContext> permitAll = (a, c) -> new AuthorizationDecision(true);
+		PathPatternRequestMatcher.Builder paths = PathPatternRequestMatcher.withDefaults();
+		requestMatchers = RequestMatcherDelegatingAuthorizationManager.builder()
+				.add(paths.matcher("/api/auth/**"), permitAll)
+				.add(paths.matcher("/api/users/register"), permitAll)
+				.add(paths.matcher("/actuator/health"), permitAll)
+				.add(paths.matcher("/actuator/info"), permitAll)
+				.add(paths.matcher("/actuator/prometheus"), permitAll)
+				.add(paths.matcher("/api/admin/**"), AuthorityAuthorizationManager.hasRole("ADMIN"))
+				.add(paths.matcher("/api/technician/**"), AuthorityAuthorizationManager.hasAnyRole("ADMIN", "TECHNICIAN"))
+				.add(paths.matcher("/api/users/**"), AuthorityAuthorizationManager.hasRole("ADMIN"))
+				.add(paths.matcher("/api/roles/**"), AuthorityAuthorizationManager.hasRole("ADMIN"))
+				.add(request -> true, AuthenticatedAuthorizationManager.authenticated())
+				.build();
+		preAuthorize = new PreAuthorizeAuthorizationManager();
+		invocation = new SimpleMethodInvocation(new AdminEndpoint(), AdminEndpoint.class.getMethod("handle"));
+
+		endpointAuthorization = context.getBean(EndpointAuthorizationManager.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean requestMatchersAndPreAuthorize() {
+		AuthorizationResult byPath = requestMatchers.authorize(authentication, request);
+		AuthorizationResult byMethod = preAuthorize.authorize(authentication, invocation);
+		return byPath.isGranted() && byMethod.isGranted();
+	}
+
+	@Benchmark
+	public boolean decisionTable() {
+		return endpointAuthorization.authorize(authentication, requestContext).isGranted();
+	}
+
+	public static class AdminEndpoint {
+
+		@PreAuthorize("hasRole('ADMIN')")
+		public void handle() {
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.laboratory.userservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de BCrypt por fuerza: encode (registro, importación) y matches (login sin cache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordEncodingBenchmark {
+
+	private static final String PASSWORD = "admin123";
+
+	@Param({ "4", "10", "12" })
+	public int strength;
+
+	private BCryptPasswordEncoder encoder;
+	private String encoded;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		encoder = new BCryptPasswordEncoder(strength);
+		encoded = encoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public String encode() {
+		return encoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return encoder.matches(PASSWORD, encoded);
+	}
+}
@@ -0,0 +1,95 @@
+package com.laboratory.userservice.benchmark;
+
+import com.laboratory.userservice.service.CustomUserDetailsService;
+import com.laboratory.userservice.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ráfaga de 10k peticiones concurrentes (una conexión cada una) a GET /api/auth/me, que valida el JWT
+ * y hace una lectura JPA bloqueante, con Tomcat en hilos de plataforma frente a hilos virtuales.
+ * Cada operación es la ráfaga completa; las respuestas distintas de 200 se informan por consola.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ThreadModelBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean virtualThreads;
+
+	@Param({ "10000" })
+	public int connections;
+
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private HttpRequest request;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContexts.start("threads", WebApplicationType.SERVLET,
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--server.tomcat.max-connections=" + connections);
+		String accessToken = context.getBean(TokenService.class)
+				.issueTokens(context.getBean(CustomUserDetailsService.class).loadUserByUsername("admin"))
+				.accessToken();
+		int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+		client = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(30))
+				.build();
+		request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/me"))
+				.header("Authorization", "Bearer " + accessToken)
+				.timeout(Duration.ofMinutes(2))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		client.close();
+		context.close();
+	}
+
+	@Benchmark
+	public void burst() throws Exception {
+		long failures = 0;
+		try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<Integer>> responses = new ArrayList<>(connections);
+			for (int i = 0; i < connections; i++) {
+				responses.add(callers.submit(() ->
+						client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+			}
+			for (Future<Integer> response : responses) {
+				try {
+					if (response.get() != 200) {
+						failures++;
+					}
+				} catch (Exception e) {
+					failures++;
+				}
+			}
+		}
+		if (failures > 0) {
+			System.out.printf("%d of %d requests failed (virtualThreads=%s)%n", failures, connections, virtualThreads);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.laboratory.userservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Exportación NDJSON de 100k usuarios (roles y permisos anidados) por HTTP/1.1 o h2c, sin comprimir o
+ * con gzip. Cada operación descarga y descomprime el listado completo; el contador auxiliar bytes
+ * suma los bytes recibidos por la red en las iteraciones medidas (dividir entre Cnt).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransportBenchmark {
+
+	@Param({ "100000" })
+	public int userCount;
+
+	@Param({ "HTTP_1_1", "HTTP_2" })
+	public HttpClient.Version protocol;
+
+	@Param({ "identity", "gzip" })
+	public String encoding;
+
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private HttpRequest request;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Transferred {
+		public long bytes;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContexts.start("transport", WebApplicationType.SERVLET, "--server.port=0");
+		BenchmarkContexts.insertUsers(context, userCount);
+		int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+		client = HttpClient.newBuilder().version(protocol).build();
+		request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users"))
+				.header("Accept", "application/x-ndjson")
+				.header("Accept-Encoding", encoding)
+				.header("Authorization", "Basic "
+						+ Base64.getEncoder().encodeToString("admin:admin123".getBytes(StandardCharsets.UTF_8)))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public long exportUsers(Transferred transferred) throws IOException, InterruptedException {
+		HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+		if (response.statusCode() != 200 || response.version() != protocol) {
+			throw new IllegalStateException("Unexpected response " + response.statusCode() + " " + response.version());
+		}
+		CountingInputStream wire = new CountingInputStream(response.body());
+		boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent();
+		try (InputStream body = gzip ? new GZIPInputStream(wire, 64 * 1024) : wire) {
+			long decoded = body.transferTo(OutputStream.nullOutputStream());
+			transferred.bytes += wire.count;
+			return decoded;
+		}
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+	}
+}
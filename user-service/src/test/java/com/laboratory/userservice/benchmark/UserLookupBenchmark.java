@@ -0,0 +1,58 @@
+package com.laboratory.userservice.benchmark;
+
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.service.CustomUserDetailsService;
+import com.laboratory.userservice.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas por usuario contra H2 con 10k / 100k / 1M usuarios: el costo no debería crecer con el tamaño
+ * de la tabla (búsquedas por índice y roles cargados con el mismo select).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserLookupBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	public int userCount;
+
+	private ConfigurableApplicationContext context;
+	private CustomUserDetailsService userDetailsService;
+	private UserService userService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContexts.start("bench");
+		BenchmarkContexts.insertUsers(context, userCount);
+		userDetailsService = context.getBean(CustomUserDetailsService.class);
+		userService = context.getBean(UserService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public UserDetails loadUserByUsername() {
+		return userDetailsService.loadUserByUsername(BenchmarkContexts.username(randomIndex()));
+	}
+
+	@Benchmark
+	public boolean userServiceHasRole() {
+		return userService.hasRole(BenchmarkContexts.userId(randomIndex()), RoleName.ROLE_TECHNICIAN);
+	}
+
+	private int randomIndex() {
+		return ThreadLocalRandom.current().nextInt(userCount);
+	}
+}
@@ -0,0 +1,240 @@
+package com.laboratory.userservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.repository.UserRepository;
+import com.laboratory.userservice.service.PasswordHashingService;
+import com.laboratory.userservice.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockitoSpyBean
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordHashingService passwordHashingService;
+
+	@Autowired
+	private UserService userService;
+
+	@Test
+	void loginIssuesTokensUsableAsBearer() throws Exception {
+		JsonNode tokens = login("admin", "admin123");
+
+		mockMvc.perform(get("/api/users/username/admin")
+						.header("Authorization", "Bearer " + tokens.get("accessToken").asText()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("admin"));
+	}
+
+	@Test
+	void tokenAuthoritiesDecideAccess() throws Exception {
+		JsonNode tokens = login("viewer", "viewer123");
+
+		mockMvc.perform(get("/api/roles")
+						.header("Authorization", "Bearer " + tokens.get("accessToken").asText()))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void revokedTokenIsRejected() throws Exception {
+		String accessToken = login("admin", "admin123").get("accessToken").asText();
+
+		mockMvc.perform(post("/api/auth/revoke")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"token\":\"" + accessToken + "\"}"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/roles").header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void refreshRotatesRefreshToken() throws Exception {
+		String refreshToken = login("admin", "admin123").get("refreshToken").asText();
+		String body = "{\"refreshToken\":\"" + refreshToken + "\"}";
+
+		mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accessToken").isNotEmpty());
+
+		mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void concurrentRefreshWithTheSameTokenSucceedsOnce() throws Exception {
+		String body = "{\"refreshToken\":\"" + login("admin", "admin123").get("refreshToken").asText() + "\"}";
+		int requests = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(requests);
+		try {
+			List<Future<Integer>> statuses = new ArrayList<>();
+			for (int i = 0; i < requests; i++) {
+				statuses.add(executor.submit(() -> {
+					start.await();
+					return mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body))
+							.andReturn().getResponse().getStatus();
+				}));
+			}
+			start.countDown();
+
+			List<Integer> results = new ArrayList<>();
+			for (Future<Integer> status : statuses) {
+				results.add(status.get(30, TimeUnit.SECONDS));
+			}
+			assertThat(results).containsOnlyOnce(200).containsOnly(200, 401);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loginRehashesPasswordStoredWithOutdatedCost() throws Exception {
+		User legacy = new User("legacy", new BCryptPasswordEncoder(4).encode("legacy123"), "legacy@laboratorio.com");
+		userRepository.save(legacy);
+
+		login("legacy", "legacy123");
+
+		String rehashed = userRepository.findByUsername("legacy").orElseThrow().getPassword();
+		assertThat(rehashed).startsWith("$2a$%02d$".formatted(passwordHashingService.strength()));
+		login("legacy", "legacy123");
+	}
+
+	@Test
+	void batchCheckAnswersSeveralAuthoritiesInOneRequest() throws Exception {
+		String viewerToken = login("viewer", "viewer123").get("accessToken").asText();
+		String adminToken = login("admin", "admin123").get("accessToken").asText();
+
+		// Sin usernames: quien llama
+		mockMvc.perform(post("/api/auth/check")
+						.header("Authorization", "Bearer " + viewerToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"authorities\":[\"ROLE_VIEWER\",\"USER_VIEW\",\"USER_EDIT\",\"NOPE\"]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.granted.viewer").value(contains(true, true, false, false)));
+
+		String others = "{\"usernames\":[\"supervisor\",\"tecnico\",\"ghost\"],"
+				+ "\"authorities\":[\"ROLE_ADMIN\",\"USER_EDIT\",\"REPORTS_ACCESS\"]}";
+		mockMvc.perform(post("/api/auth/check")
+						.header("Authorization", "Bearer " + viewerToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(others))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/api/auth/check")
+						.header("Authorization", "Bearer " + adminToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(others))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.granted.supervisor").value(contains(false, true, true)))
+				.andExpect(jsonPath("$.granted.tecnico").value(contains(false, false, true)))
+				.andExpect(jsonPath("$.notFound").value(contains("ghost")));
+
+		mockMvc.perform(post("/api/auth/check")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"authorities\":[\"ROLE_ADMIN\"]}"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void batchCheckOfTheCallerUsesCurrentRolesNotTokenRoles() throws Exception {
+		User user = userService.createUserWithRoles(new User("check-stale", "stale123", "check-stale@laboratorio.com"),
+				Set.of(RoleName.ROLE_USER, RoleName.ROLE_VIEWER));
+		String token = login("check-stale", "stale123").get("accessToken").asText();
+		userService.removeRoleFromUser(user.getId(), RoleName.ROLE_VIEWER);
+
+		// El token aún lleva ROLE_VIEWER; la respuesta es la misma que recibiría un ADMIN preguntando por él
+		mockMvc.perform(post("/api/auth/check")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"authorities\":[\"ROLE_VIEWER\",\"ROLE_USER\"]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.granted.check-stale").value(contains(false, true)));
+	}
+
+	@Test
+	void batchCheckRejectsNullOrBlankEntries() throws Exception {
+		String adminToken = login("admin", "admin123").get("accessToken").asText();
+
+		for (String body : List.of("{\"authorities\":[\"ROLE_ADMIN\",null]}",
+				"{\"authorities\":[\" \"]}",
+				"{\"usernames\":[\"viewer\",null],\"authorities\":[\"ROLE_ADMIN\"]}")) {
+			mockMvc.perform(post("/api/auth/check")
+							.header("Authorization", "Bearer " + adminToken)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(body))
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.error").isNotEmpty());
+		}
+	}
+
+	@Test
+	void batchCheckFailuresAreNotReportedAsBadRequests() throws Exception {
+		String adminToken = login("admin", "admin123").get("accessToken").asText();
+		willThrow(new DataAccessResourceFailureException("connection pool exhausted"))
+				.given(userRepository).findRoleNamesByUsernameIn(any());
+
+		// Un fallo interno no es culpa de la petición: sale como error del servidor, sin su mensaje en un 400
+		assertThatThrownBy(() -> mockMvc.perform(post("/api/auth/check")
+						.header("Authorization", "Bearer " + adminToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"authorities\":[\"ROLE_ADMIN\"]}")))
+				.hasRootCauseInstanceOf(DataAccessResourceFailureException.class);
+	}
+
+	@Test
+	void invalidCredentialsAreRejected() throws Exception {
+		mockMvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"admin\",\"password\":\"wrong\"}"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private JsonNode login(String username, String password) throws Exception {
+		String response = mockMvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(response);
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.laboratory.userservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class PrometheusEndpointTests {
+
+	private static final int MANAGEMENT_PORT = freePort();
+	private static final String ADMIN = "Basic "
+			+ Base64.getEncoder().encodeToString("admin:admin123".getBytes(StandardCharsets.UTF_8));
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	@DynamicPropertySource
+	static void managementPort(DynamicPropertyRegistry registry) {
+		registry.add("management.server.port", () -> MANAGEMENT_PORT);
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void identityHotPathsAreExported() throws Exception {
+		assertThat(get(port, "/api/users/1", ADMIN).statusCode()).isEqualTo(200);
+
+		HttpResponse<String> metrics = get(MANAGEMENT_PORT, "/actuator/prometheus", null);
+
+		assertThat(metrics.statusCode()).isEqualTo(200);
+		assertThat(metrics.body()).contains(
+				"user_details_load_seconds_bucket",
+				"user_service_seconds_bucket{class=\"com.laboratory.userservice.service.UserService\",exception=\"none\",method=\"findById\"",
+				"rbac_authorities_seconds_bucket",
+				"password_hashing_duration_seconds_bucket{operation=\"matches\"",
+				"cache_gets_total{cache=\"auth.user-details\"",
+				"hikaricp_connections_acquire_seconds_bucket",
+				"hibernate_statements_per_request_statements_count{method=\"GET\",uri=\"/api/users/{id}\"}");
+	}
+
+	@Test
+	void prometheusIsOpenOnlyOnTheManagementPort() throws Exception {
+		assertThat(get(MANAGEMENT_PORT, "/actuator/prometheus", null).statusCode()).isEqualTo(200);
+		assertThat(get(MANAGEMENT_PORT, "/actuator/metrics", null).statusCode()).isEqualTo(401);
+		assertThat(get(port, "/actuator/prometheus", null).statusCode()).isEqualTo(401);
+		// El health check del balanceador sigue respondiendo en el puerto público
+		assertThat(get(port, "/readyz", null).statusCode()).isEqualTo(200);
+	}
+
+	private HttpResponse<String> get(int port, String path, String authorization) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+		if (authorization != null) {
+			request.header("Authorization", authorization);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static int freePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.laboratory.userservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = "ADMIN")
+class RoleControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void rolesAreRevalidatedByEtag() throws Exception {
+		String etag = mockMvc.perform(get("/api/roles"))
+				.andExpect(status().isOk())
+				// Cacheable por el gateway: sin el no-store por defecto de Spring Security
+				.andExpect(header().string("Cache-Control", "no-cache"))
+				.andReturn().getResponse().getHeader("ETag");
+		assertThat(etag).isNotBlank();
+
+		mockMvc.perform(get("/api/roles").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+	}
+
+}
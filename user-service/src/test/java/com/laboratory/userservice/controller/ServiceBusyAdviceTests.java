@@ -0,0 +1,129 @@
+package com.laboratory.userservice.controller;
+
+import com.laboratory.userservice.service.PasswordHashingBusyException;
+import com.laboratory.userservice.service.PasswordHashingService;
+import com.laboratory.userservice.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Un hilo de hash y sin cola: basta una verificación en curso para saturar el pool
+@SpringBootTest(properties = {
+		"app.security.password.threads=1",
+		"app.security.password.queue-capacity=0"
+})
+@AutoConfigureMockMvc
+class ServiceBusyAdviceTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PasswordHashingService passwordHashingService;
+
+	@MockitoBean
+	private UserService userService;
+
+	@Test
+	void saturatedHashingReachesTheAdviceAs503() throws Exception {
+		PasswordHashingBusyException busy = new PasswordHashingBusyException(Duration.ofSeconds(3));
+		given(userService.createUser(any())).willThrow(busy);
+
+		mockMvc.perform(post("/api/users/register")
+						.contentType("application/json")
+						.content("{\"username\":\"busy\",\"password\":\"secret\",\"email\":\"busy@laboratorio.com\"}"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "3"))
+				.andExpect(jsonPath("$.error").value("Password hashing is saturated, retry later"));
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void saturatedHashingOnPasswordChangeIsNotReportedAsNotFound() throws Exception {
+		given(userService.changePassword(anyLong(), any()))
+				.willThrow(new PasswordHashingBusyException(Duration.ofSeconds(2)));
+
+		mockMvc.perform(put("/api/users/1/password")
+						.contentType("application/json")
+						.content("{\"newPassword\":\"secret\"}"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "2"));
+	}
+
+	@Test
+	void saturatedHashingDuringBasicAuthenticationIs503() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<String> busy = callers.submit(() ->
+					passwordHashingService.encode(new BlockingPassword("busy", started, release)));
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+			try {
+				mockMvc.perform(get("/api/users/1").with(httpBasic("admin", "admin123")))
+						.andExpect(status().isServiceUnavailable())
+						.andExpect(header().exists("Retry-After"))
+						.andExpect(jsonPath("$.error").value("Password hashing is saturated, retry later"));
+			} finally {
+				release.countDown();
+			}
+			busy.get(10, TimeUnit.SECONDS);
+		}
+	}
+
+	// BCrypt lee la contraseña con toString(): ocupa el único hilo del pool hasta soltar el latch
+	private record BlockingPassword(String value, CountDownLatch started, CountDownLatch release)
+			implements CharSequence {
+
+		@Override
+		public String toString() {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return value;
+		}
+
+		@Override
+		public int length() {
+			return value.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return value.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return value.subSequence(start, end);
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+package com.laboratory.userservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void usersByRoleArePagedByCursor() throws Exception {
+		// ROLE_TECHNICIAN: tecnico y supervisor
+		String firstPage = mockMvc.perform(get("/api/users/role/ROLE_TECHNICIAN")
+						.param("limit", "1")
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.items[0].username").value("tecnico"))
+				.andReturn().getResponse().getContentAsString();
+
+		String cursor = firstPage.replaceAll(".*\"nextCursor\":(\\d+).*", "$1");
+
+		mockMvc.perform(get("/api/users/role/ROLE_TECHNICIAN")
+						.param("after", cursor)
+						.param("limit", "1")
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].username").value("supervisor"));
+
+		mockMvc.perform(get("/api/users/role/ROLE_TECHNICIAN")
+						.param("after", cursor)
+						.param("limit", "5")
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+	}
+
+	@Test
+	void userByIdIsLookedUpDirectly() throws Exception {
+		mockMvc.perform(get("/api/users/1").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("admin"));
+
+		mockMvc.perform(get("/api/users/999999").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void allUsersArePagedByCursor() throws Exception {
+		mockMvc.perform(get("/api/users").param("limit", "2").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.items[0].username").value("admin"))
+				.andExpect(jsonPath("$.nextCursor").isNumber());
+	}
+
+	@Test
+	void allUsersCanBeStreamedAsNdjson() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/users")
+						.accept("application/x-ndjson")
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body.lines()).hasSizeGreaterThanOrEqualTo(5)
+				.doesNotHaveDuplicates()
+				.allMatch(line -> line.startsWith("{") && line.contains("\"username\"") && !line.contains("password"));
+	}
+
+	@Test
+	void userResponsesFlattenRolesAndOmitPassword() throws Exception {
+		mockMvc.perform(get("/api/users/username/supervisor").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.password").doesNotExist())
+				.andExpect(jsonPath("$.roles", containsInAnyOrder("ROLE_SUPERVISOR", "ROLE_TECHNICIAN", "ROLE_USER")));
+
+		mockMvc.perform(get("/api/users").param("limit", "500").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[*].password").isEmpty())
+				.andExpect(jsonPath("$.items[0].roles", containsInAnyOrder("ROLE_ADMIN", "ROLE_USER")));
+
+		mockMvc.perform(get("/api/auth/me").with(httpBasic("viewer", "viewer123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.password").doesNotExist())
+				.andExpect(jsonPath("$.roles", containsInAnyOrder("ROLE_VIEWER", "ROLE_USER")));
+	}
+
+	@Test
+	void bulkImportReportsPerRowErrors() throws Exception {
+		String csv = """
+				username,password,email,firstName,lastName,roles
+				bulk1,secret1,bulk1@laboratorio.com,Uno,Bulk,ROLE_USER|ROLE_VIEWER
+				bulk2,secret2,bulk2@laboratorio.com,"Dos, con coma",Bulk,
+				admin,secret3,otro@laboratorio.com,Admin,Repetido,
+				bulk1,secret4,bulk4@laboratorio.com,Repetido,En archivo,
+				bulk5,,bulk5@laboratorio.com,Sin,Password,
+				bulk6,secret6,bulk6@laboratorio.com,Rol,Invalido,ROLE_NOPE
+				""";
+
+		mockMvc.perform(post("/api/users/bulk")
+						.contentType("text/csv")
+						.content(csv)
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.failed").value(4))
+				.andExpect(jsonPath("$.errors[*].line", containsInAnyOrder(4, 5, 6, 7)));
+
+		mockMvc.perform(get("/api/users/username/bulk2").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.firstName").value("Dos, con coma"));
+
+		mockMvc.perform(get("/api/auth/me").with(httpBasic("bulk1", "secret1")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.roles", hasSize(2)));
+	}
+
+	@Test
+	void bulkImportAcceptsNdjson() throws Exception {
+		String ndjson = """
+				{"username":"ndjson1","password":"secret","email":"ndjson1@laboratorio.com","roles":["ROLE_VIEWER"]}
+				{"username":"ndjson2","password":"secret","email":"ndjson2@laboratorio.com"}
+				not json
+				""";
+
+		mockMvc.perform(post("/api/users/bulk")
+						.contentType("application/x-ndjson")
+						.content(ndjson)
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(3));
+	}
+
+	@Test
+	void roleChangesCarryCacheInvalidationHint() throws Exception {
+		String userId = mockMvc.perform(get("/api/users/username/usuario").with(httpBasic("admin", "admin123")))
+				.andReturn().getResponse().getContentAsString()
+				.replaceAll(".*?\"id\":(\\d+).*", "$1");
+
+		mockMvc.perform(post("/api/users/{id}/roles/ROLE_VIEWER", userId).with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Cache-Invalidate", "user:usuario"));
+		mockMvc.perform(delete("/api/users/{id}/roles/ROLE_VIEWER", userId).with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Cache-Invalidate", "user:usuario"));
+	}
+
+	@Test
+	void updatingToATakenEmailIsRejectedLikeRegistration() throws Exception {
+		String userId = mockMvc.perform(get("/api/users/username/viewer").with(httpBasic("admin", "admin123")))
+				.andReturn().getResponse().getContentAsString()
+				.replaceAll(".*?\"id\":(\\d+).*", "$1");
+
+		mockMvc.perform(put("/api/users/{id}", userId)
+						.contentType("application/json")
+						.content("{\"email\":\"admin@laboratorio.com\",\"firstName\":\"Carlos\",\"enabled\":true}")
+						.with(httpBasic("admin", "admin123")))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Email already exists: admin@laboratorio.com"));
+		mockMvc.perform(get("/api/users/username/viewer").with(httpBasic("admin", "admin123")))
+				.andExpect(jsonPath("$.email").value("viewer@laboratorio.com"));
+	}
+
+	@Test
+	void userEndpointsAreAdminOnlyByPathRule() throws Exception {
+		mockMvc.perform(get("/api/users").with(httpBasic("viewer", "viewer123")))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/users/1").with(httpBasic("tecnico", "tecnico123")))
+				.andExpect(status().isForbidden());
+		// El path se compara decodificado, igual que lo enruta Spring MVC
+		mockMvc.perform(get(URI.create("/api/%75sers")).with(httpBasic("viewer", "viewer123")))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/users")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get(URI.create("/api/%75sers")).with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk());
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.laboratory.userservice.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número exacto de sentencias SQL por endpoint: no debe depender de cuántos usuarios o roles hay.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = "ADMIN")
+class QueryCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void resetStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void currentUserLoadsRolesInOneQuery() throws Exception {
+		mockMvc.perform(get("/api/auth/me")).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void userByIdIsOneQuery() throws Exception {
+		mockMvc.perform(get("/api/users/1")).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void userListingIsIdsThenRows() throws Exception {
+		mockMvc.perform(get("/api/users")).andExpect(status().isOk());
+
+		// ids de la página + filas usuario-rol proyectadas
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void usersByRoleIsIdsThenRows() throws Exception {
+		mockMvc.perform(get("/api/users/role/ROLE_USER")).andExpect(status().isOk());
+
+		// rol + ids de la página + filas usuario-rol proyectadas
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void roleListingIsServedFromRbacSnapshot() throws Exception {
+		mockMvc.perform(get("/api/roles")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/roles/ROLE_ADMIN")).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void ndjsonExportIsOneQuery() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/users").accept("application/x-ndjson"))
+				.andExpect(status().isOk())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void authenticationLoadsUserInOneQuery() throws Exception {
+		mockMvc.perform(get("/api/auth/me").with(httpBasic("viewer", "viewer123")))
+				.andExpect(status().isOk());
+
+		// loadUserByUsername + /me
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.laboratory.userservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticationCacheTests {
+
+	private final AuthenticationCache cache = new AuthenticationCache(Duration.ofMinutes(5), 100);
+
+	@Test
+	void verifiedCredentialOnlyMatchesSamePasswordAndHash() {
+		cache.markVerified("admin", "admin123", "$2a$10$hash");
+
+		assertThat(cache.isVerified("admin", "admin123", "$2a$10$hash")).isTrue();
+		assertThat(cache.isVerified("admin", "otra", "$2a$10$hash")).isFalse();
+		assertThat(cache.isVerified("admin", "admin123", "$2a$10$otroHash")).isFalse();
+		assertThat(cache.isVerified("tecnico", "admin123", "$2a$10$hash")).isFalse();
+	}
+
+	@Test
+	void cachedUserDetailsSurviveCredentialErasure() {
+		cache.putUserInCache(User.withUsername("admin").password("$2a$10$hash").roles("ADMIN").build());
+
+		UserDetails first = cache.getUserFromCache("admin");
+		((User) first).eraseCredentials();
+
+		assertThat(cache.getUserFromCache("admin").getPassword()).isEqualTo("$2a$10$hash");
+	}
+
+	@Test
+	void invalidateDropsBothEntries() {
+		cache.putUserInCache(User.withUsername("admin").password("$2a$10$hash").roles("ADMIN").build());
+		cache.markVerified("admin", "admin123", "$2a$10$hash");
+
+		cache.invalidate("admin");
+
+		assertThat(cache.getUserFromCache("admin")).isNull();
+		assertThat(cache.isVerified("admin", "admin123", "$2a$10$hash")).isFalse();
+	}
+
+}
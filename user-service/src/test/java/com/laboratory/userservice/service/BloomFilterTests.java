@@ -0,0 +1,52 @@
+package com.laboratory.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class BloomFilterTests {
+
+	private static final int USERS = 1_000_000;
+
+	@Test
+	void millionEmailsFitInAboutOneMegabyteAtOnePercent() {
+		BloomFilter filter = BloomFilter.create(USERS, 0.01);
+
+		// m = 9,59 bits por entrada, k = 7
+		assertThat(filter.hashFunctions()).isEqualTo(7);
+		assertThat(filter.sizeInBytes()).isBetween(1_190_000L, 1_210_000L);
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheTargetAtCapacity() {
+		BloomFilter filter = BloomFilter.create(USERS, 0.01);
+		for (int i = 0; i < USERS; i++) {
+			filter.put("user" + i + "@laboratorio.com");
+		}
+
+		for (int i = 0; i < USERS; i++) {
+			assertThat(filter.mightContain("user" + i + "@laboratorio.com")).isTrue();
+		}
+		int falsePositives = 0;
+		for (int i = USERS; i < 2 * USERS; i++) {
+			if (filter.mightContain("user" + i + "@laboratorio.com")) {
+				falsePositives++;
+			}
+		}
+
+		double rate = (double) falsePositives / USERS;
+		assertThat(rate).isBetween(0.005, 0.013);
+		assertThat(filter.expectedFpp()).isCloseTo(rate, offset(0.003));
+		assertThat(filter.insertions()).isEqualTo(USERS);
+	}
+
+	@Test
+	void emptyFilterContainsNothing() {
+		BloomFilter filter = BloomFilter.create(10, 0.01);
+
+		assertThat(filter.mightContain("admin")).isFalse();
+		assertThat(filter.expectedFpp()).isZero();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CredentialFilterTests {
+
+	@Autowired
+	private CredentialFilter credentialFilter;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("applicationTaskExecutor")
+	private AsyncTaskExecutor taskExecutor;
+
+	@Test
+	void seededAndNewUsersAreKnownWithoutQueries() {
+		assertThat(credentialFilter.mightContain(CredentialFilter.Kind.USERNAME, "admin")).isTrue();
+		assertThat(credentialFilter.exists(CredentialFilter.Kind.USERNAME, "filter-nobody",
+				username -> { throw new AssertionError("consulta innecesaria: " + username); })).isFalse();
+
+		userService.createUser(new User("filter1", "secret1", "filter1@laboratorio.com"));
+
+		assertThat(credentialFilter.mightContain(CredentialFilter.Kind.USERNAME, "filter1")).isTrue();
+		assertThat(credentialFilter.mightContain(CredentialFilter.Kind.EMAIL, "filter1@laboratorio.com")).isTrue();
+		assertThatThrownBy(() -> userService.createUser(new User("filter1", "secret1", "otro1@laboratorio.com")))
+				.hasMessage("Username already exists: filter1");
+	}
+
+	@Test
+	void usersTheFilterMissedAreCaughtByTheUniqueConstraints() {
+		// Alta que no pasa por este filtro (otra instancia, SQL directo)
+		userRepository.saveAndFlush(new User("filter-ghost", "hash", "ghost@laboratorio.com"));
+
+		assertThatThrownBy(() -> userService.createUser(new User("filter-ghost", "secret", "ghost2@laboratorio.com")))
+				.hasMessage("Username already exists: filter-ghost");
+		assertThatThrownBy(() -> userService.createUser(new User("filter-ghost2", "secret", "ghost@laboratorio.com")))
+				.hasMessage("Email already exists: ghost@laboratorio.com");
+		assertThat(userRepository.existsByUsername("filter-ghost2")).isFalse();
+	}
+
+	@Test
+	void emailIsUnique() {
+		userRepository.saveAndFlush(new User("filter-email1", "hash", "same@laboratorio.com"));
+
+		assertThatThrownBy(() -> userRepository.saveAndFlush(new User("filter-email2", "hash", "same@laboratorio.com")))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	@Test
+	void onlyALoadedFilterCountsFalsePositives() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		CredentialFilter unloaded = new CredentialFilter(userRepository, transactionManager, taskExecutor,
+				meterRegistry, true, 0.01, 1000, 0.1);
+
+		// Antes de la primera carga todo va a la BD, pero no es un positivo del filtro
+		assertThat(unloaded.exists(CredentialFilter.Kind.USERNAME, "filter-unloaded",
+				userRepository::existsByUsername)).isFalse();
+		assertThat(meterRegistry.get("user.credentials.filter.false.positives").counter().count()).isZero();
+
+		unloaded.rebuild();
+		assertThat(unloaded.exists(CredentialFilter.Kind.USERNAME, "admin", username -> false)).isFalse();
+		assertThat(meterRegistry.get("user.credentials.filter.false.positives").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void releasedValuesStayAsFalsePositivesUntilRebuilt() {
+		User user = userService.createUser(new User("filter-gone", "secret", "gone@laboratorio.com"));
+		userService.deleteUser(user.getId());
+
+		credentialFilter.rebuild();
+
+		assertThat(credentialFilter.exists(CredentialFilter.Kind.USERNAME, "filter-gone",
+				userRepository::existsByUsername)).isFalse();
+		userService.createUser(new User("filter-gone", "secret", "gone@laboratorio.com"));
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.OutboxEvent;
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.User;
+import com.laboratory.userservice.model.UserEventType;
+import com.laboratory.userservice.repository.OutboxEventRepository;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"app.outbox.relay.enabled=true",
+		"app.outbox.relay.interval=50ms",
+		"app.outbox.relay.max-attempts=3",
+		// Por debajo de este tamaño de mensaje el broker rechaza el envío: evento que nunca se publicará
+		"spring.kafka.producer.properties[max.request.size]=2048",
+		"app.outbox.topic-partitions=2",
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"
+})
+@EmbeddedKafka
+// El relay planificado no debe seguir corriendo con la BD de los contextos de otros tests
+@DirtiesContext
+class OutboxRelayTests {
+
+	private static final String TOPIC = "user-events";
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserEventOutbox userEventOutbox;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private EmbeddedKafkaBroker broker;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void userChangesArePublishedInOrderUnderTheUserKey() throws Exception {
+		User user = userService.createUser(new User("outbox1", "secret1", "outbox1@laboratorio.com"));
+		String key = user.getId().toString();
+		userService.addRoleToUser(user.getId(), RoleName.ROLE_VIEWER);
+		userService.changePassword(user.getId(), "secret2");
+		userService.deleteUser(user.getId());
+
+		List<ConsumerRecord<String, String>> events = new ArrayList<>();
+		try (Consumer<String, String> consumer = consumer()) {
+			long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+			while (events.size() < 4 && System.nanoTime() < deadline) {
+				KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1)).forEach(record -> {
+					if (key.equals(record.key())) {
+						events.add(record);
+					}
+				});
+			}
+		}
+
+		assertThat(events).extracting(OutboxRelayTests::eventType).containsExactly(
+				UserEventType.CREATED.name(), UserEventType.ROLES_CHANGED.name(),
+				UserEventType.PASSWORD_CHANGED.name(), UserEventType.DELETED.name());
+		assertThat(events).extracting(ConsumerRecord::partition).containsOnly(events.get(0).partition());
+		assertThat(events.get(1).value())
+				.contains("\"username\":\"outbox1\"", "ROLE_VIEWER", "ROLE_USER")
+				.doesNotContain("password");
+		assertThat(events.get(3).value()).isNull();
+		assertThat(events).extracting(OutboxRelayTests::version).containsExactly("0", "1", "2", "3");
+		assertThat(events.get(1).value()).contains("\"version\":1");
+
+		// Las filas publicadas se borran del outbox
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (outboxEventRepository.count() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		assertThat(outboxEventRepository.count()).isZero();
+	}
+
+	@Test
+	void eventsOfAUserArePublishedByVersionNotById() throws Exception {
+		String key = "outbox-order";
+		// Ids en orden inverso a las versiones, como con bloques de ids de dos instancias
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			outboxEventRepository.save(new OutboxEvent(key, 2, UserEventType.UPDATED, "{\"version\":2}", Instant.now()));
+			outboxEventRepository.save(new OutboxEvent(key, 1, UserEventType.UPDATED, "{\"version\":1}", Instant.now()));
+		});
+
+		List<ConsumerRecord<String, String>> events = new ArrayList<>();
+		try (Consumer<String, String> consumer = consumer()) {
+			poll(consumer, key, events, 2);
+			// Una versión anterior a la publicada ya no se publica
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> outboxEventRepository.save(
+					new OutboxEvent(key, 1, UserEventType.UPDATED, "{\"version\":1}", Instant.now())));
+			outboxEventRepository.save(new OutboxEvent(key, 3, UserEventType.UPDATED, "{\"version\":3}", Instant.now()));
+			poll(consumer, key, events, 3);
+		}
+
+		assertThat(events).extracting(OutboxRelayTests::version).containsExactly("1", "2", "3");
+	}
+
+	@Test
+	void eventThatCannotBePublishedIsParkedWithoutBlockingTheRest() throws Exception {
+		OutboxEvent poison = outboxEventRepository.save(new OutboxEvent("outbox-poison", 0, UserEventType.UPDATED,
+				"x".repeat(3000), Instant.now()));
+		outboxEventRepository.save(new OutboxEvent("outbox-after", 0, UserEventType.UPDATED, "{}", Instant.now()));
+
+		List<ConsumerRecord<String, String>> events = new ArrayList<>();
+		try (Consumer<String, String> consumer = consumer()) {
+			poll(consumer, "outbox-after", events, 1);
+		}
+		assertThat(events).hasSize(1);
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (outboxEventRepository.findById(poison.getId()).orElseThrow().getParkedAt() == null
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		OutboxEvent parked = outboxEventRepository.findById(poison.getId()).orElseThrow();
+		assertThat(parked.getParkedAt()).isNotNull();
+		assertThat(parked.getAttempts()).isEqualTo(3);
+		outboxEventRepository.delete(parked);
+	}
+
+	@Test
+	void topicIsCompacted() throws Exception {
+		try (AdminClient admin = AdminClient.create(Map.of(
+				AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+			ConfigResource topic = new ConfigResource(ConfigResource.Type.TOPIC, TOPIC);
+			String cleanupPolicy = admin.describeConfigs(List.of(topic)).all().get().get(topic)
+					.get(TopicConfig.CLEANUP_POLICY_CONFIG).value();
+
+			assertThat(cleanupPolicy).isEqualTo(TopicConfig.CLEANUP_POLICY_COMPACT);
+		}
+	}
+
+	@Test
+	void eventsCanOnlyBeRecordedInsideTheChangeTransaction() {
+		assertThatThrownBy(() -> userEventOutbox.recordDeleted(new User("ghost", "secret", "ghost@laboratorio.com")))
+				.isInstanceOf(IllegalTransactionStateException.class);
+	}
+
+	private Consumer<String, String> consumer() {
+		Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-tests", "false", broker);
+		props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+		props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+		Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(props).createConsumer();
+		consumer.subscribe(List.of(TOPIC));
+		return consumer;
+	}
+
+	private static void poll(Consumer<String, String> consumer, String key,
+			List<ConsumerRecord<String, String>> events, int count) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		while (events.size() < count && System.nanoTime() < deadline) {
+			KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1)).forEach(record -> {
+				if (key.equals(record.key())) {
+					events.add(record);
+				}
+			});
+		}
+	}
+
+	private static String version(ConsumerRecord<String, String> record) {
+		return new String(record.headers().lastHeader("aggregate-version").value(), StandardCharsets.UTF_8);
+	}
+
+	private static String eventType(ConsumerRecord<String, String> record) {
+		return new String(record.headers().lastHeader("event-type").value(), StandardCharsets.UTF_8);
+	}
+}
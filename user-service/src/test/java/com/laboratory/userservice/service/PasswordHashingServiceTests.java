@@ -0,0 +1,113 @@
+package com.laboratory.userservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void calibratedStrengthStaysWithinBounds() {
+		PasswordHashingService fast = service(Duration.ofNanos(1), 4, 8, 1, 1);
+		PasswordHashingService capped = service(Duration.ofHours(1), 4, 6, 1, 1);
+
+		assertThat(fast.strength()).isEqualTo(4);
+		assertThat(capped.strength()).isEqualTo(6);
+		assertThat(capped.matches("secret", capped.encode("secret"))).isTrue();
+	}
+
+	@Test
+	void outdatedCostNeedsUpgrade() {
+		PasswordHashingService hashing = service(Duration.ofNanos(1), 6, 6, 1, 1);
+
+		assertThat(hashing.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+		assertThat(hashing.upgradeEncoding(hashing.encode("secret"))).isFalse();
+	}
+
+	@Test
+	void saturatedPoolRejectsInteractiveHashing() throws Exception {
+		// Un hilo y sin cola: el primer hash se queda dentro de BCrypt hasta soltar el latch
+		PasswordHashingService hashing = service(Duration.ofNanos(1), 4, 4, 1, 0);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<String> first = callers.submit(() -> hashing.encode(new BlockingPassword("first", started, release)));
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+			assertThatThrownBy(() -> hashing.encode("second"))
+					.isInstanceOfSatisfying(PasswordHashingBusyException.class,
+							e -> assertThat(e.getRetryAfter()).isGreaterThanOrEqualTo(Duration.ofSeconds(1)));
+
+			release.countDown();
+			assertThat(first.get(10, TimeUnit.SECONDS)).startsWith("$2a$04$");
+		}
+		assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void bulkHashingWaitsInsteadOfFailing() {
+		PasswordHashingService hashing = service(Duration.ofNanos(1), 4, 4, 1, 0);
+
+		List<CompletableFuture<String>> hashes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			hashes.add(hashing.encodeAsync("password" + i));
+		}
+
+		assertThat(hashes).allSatisfy(hash -> assertThat(hash.join()).startsWith("$2a$04$"));
+		assertThat(meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count())
+				.isEqualTo(20);
+	}
+
+	// BCrypt lee la contraseña con toString(): avisa de que el hash empezó y espera a que lo suelten
+	private record BlockingPassword(String value, CountDownLatch started, CountDownLatch release)
+			implements CharSequence {
+
+		@Override
+		public String toString() {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return value;
+		}
+
+		@Override
+		public int length() {
+			return value.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return value.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return value.subSequence(start, end);
+		}
+	}
+
+	private PasswordHashingService service(Duration target, int minStrength, int maxStrength,
+										   int threads, int queueCapacity) {
+		return new PasswordHashingService(meterRegistry, target, minStrength, maxStrength, threads, queueCapacity);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.Permission;
+import com.laboratory.userservice.model.Role;
+import com.laboratory.userservice.model.RoleName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RbacSnapshotTests {
+
+	@Test
+	void authoritiesAreTheUnionOfRolePermissions() {
+		Permission view = permission("USER_VIEW");
+		Permission edit = permission("USER_EDIT");
+		Permission reports = permission("REPORTS_ACCESS");
+
+		RbacSnapshot snapshot = new RbacSnapshot(
+				List.of(role(RoleName.ROLE_VIEWER, view), role(RoleName.ROLE_SUPERVISOR, view, edit, reports),
+						role(RoleName.ROLE_USER)),
+				List.of(view, edit, reports));
+
+		Set<GrantedAuthority> authorities = snapshot.authorities(
+				RbacSnapshot.roleMask(Set.of(RoleName.ROLE_VIEWER, RoleName.ROLE_USER)));
+
+		assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+				.containsExactlyInAnyOrder("ROLE_USER", "ROLE_VIEWER", "USER_VIEW");
+		assertThat(snapshot.hasPermission(RoleName.ROLE_SUPERVISOR, "USER_EDIT")).isTrue();
+		assertThat(snapshot.hasPermission(RoleName.ROLE_VIEWER, "USER_EDIT")).isFalse();
+		assertThat(snapshot.authorities(RbacSnapshot.roleMask(Set.of(RoleName.ROLE_VIEWER, RoleName.ROLE_USER))))
+				.isSameAs(authorities);
+	}
+
+	@Test
+	void authorityBitsMatchAuthorities() {
+		Permission view = permission("USER_VIEW");
+		Permission edit = permission("USER_EDIT");
+		RbacSnapshot snapshot = new RbacSnapshot(
+				List.of(role(RoleName.ROLE_VIEWER, view), role(RoleName.ROLE_SUPERVISOR, view, edit)),
+				List.of(view, edit));
+
+		int viewer = RbacSnapshot.roleMask(Set.of(RoleName.ROLE_VIEWER));
+		BitSet bits = snapshot.authorityBits(viewer);
+
+		assertThat(bits.get(snapshot.authorityBit("ROLE_VIEWER"))).isTrue();
+		assertThat(bits.get(snapshot.authorityBit("USER_VIEW"))).isTrue();
+		assertThat(bits.get(snapshot.authorityBit("USER_EDIT"))).isFalse();
+		assertThat(bits.get(snapshot.authorityBit("ROLE_SUPERVISOR"))).isFalse();
+		assertThat(snapshot.authorityBit("UNKNOWN")).isEqualTo(-1);
+		assertThat(RbacSnapshot.roleMaskOf(snapshot.authorities(viewer))).isEqualTo(viewer);
+		assertThat(snapshot.authorityBits(viewer)).isSameAs(bits);
+	}
+
+	private static Permission permission(String name) {
+		Permission permission = new Permission();
+		permission.setName(name);
+		return permission;
+	}
+
+	private static Role role(RoleName name, Permission... permissions) {
+		Role role = new Role(name, name.getDescription());
+		role.setPermissions(Set.of(permissions));
+		return role;
+	}
+
+}
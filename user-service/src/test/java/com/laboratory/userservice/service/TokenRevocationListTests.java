@@ -0,0 +1,54 @@
+package com.laboratory.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTests {
+
+	private final TokenRevocationList revocationList = new TokenRevocationList();
+
+	@Test
+	void onlyOneConcurrentRevocationWins() throws Exception {
+		Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+		int callers = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return revocationList.revokeIfAbsent("refresh-1", expiresAt);
+				}));
+			}
+			start.countDown();
+
+			int winners = 0;
+			for (Future<Boolean> result : results) {
+				winners += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+			}
+			assertThat(winners).isEqualTo(1);
+			assertThat(revocationList.isRevoked("refresh-1", expiresAt)).isTrue();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void expiredOrAnonymousTokensAreNeverAccepted() {
+		assertThat(revocationList.revokeIfAbsent(null, Instant.now().plusSeconds(60))).isFalse();
+		assertThat(revocationList.revokeIfAbsent("old", Instant.now().minusSeconds(1))).isFalse();
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.laboratory.userservice.service;
+
+import com.laboratory.userservice.model.RoleName;
+import com.laboratory.userservice.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class UserServiceTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private AuthenticationCache authenticationCache;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void cachedUserIsInvalidatedOnlyAfterCommit() {
+		User user = userService.createUserWithRoles(new User("cache-order", "secret", "cache-order@laboratorio.com"),
+				Set.of(RoleName.ROLE_USER, RoleName.ROLE_TECHNICIAN));
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			userService.removeRoleFromUser(user.getId(), RoleName.ROLE_TECHNICIAN);
+			// Login concurrente antes del commit: lee y cachea la fila anterior
+			authenticationCache.putUserInCache(userDetailsService.loadUserByUsername("cache-order"));
+			assertThat(authenticationCache.getUserFromCache("cache-order")).isNotNull();
+		});
+
+		assertThat(authenticationCache.getUserFromCache("cache-order")).isNull();
+	}
+
+	@Test
+	void rolledBackChangeKeepsCachedUser() {
+		User user = userService.createUser(new User("cache-rollback", "secret", "cache-rollback@laboratorio.com"));
+		authenticationCache.putUserInCache(userDetailsService.loadUserByUsername("cache-rollback"));
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			userService.deleteUser(user.getId());
+			status.setRollbackOnly();
+		});
+
+		assertThat(authenticationCache.getUserFromCache("cache-rollback")).isNotNull();
+	}
+
+	@Test
+	void onlyUniqueViolationsAreReportedAsDuplicates() {
+		userService.createUser(new User("duplicate-check", "secret", "duplicate-check@laboratorio.com"));
+
+		assertThatThrownBy(() -> userService.createUser(
+				new User("duplicate-check-2", "secret", "duplicate-check@laboratorio.com")))
+				.isInstanceOf(DuplicateCredentialException.class)
+				.hasMessage("Email already exists: duplicate-check@laboratorio.com");
+		// Valor demasiado largo para la columna: no es un duplicado
+		assertThatThrownBy(() -> userService.createUser(
+				new User("x".repeat(300), "secret", "too-long@laboratorio.com")))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.laboratory.userservice.service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La carga transaccional de usuarios no debe fijar (pin) hilos virtuales a su carrier: con más hilos
+ * que conexiones en el pool, los que esperan conexión tienen que poder desmontarse.
+ */
+@SpringBootTest
+class VirtualThreadPinningTests {
+
+	private static final int CONCURRENT_LOADS = 100;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserService userService;
+
+	@Test
+	void transactionalUserLoadDoesNotPinVirtualThreads() throws Exception {
+		Path dump = Files.createTempFile("pinning", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+			recording.start();
+
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				List<Future<?>> loads = new ArrayList<>();
+				for (int i = 0; i < CONCURRENT_LOADS; i++) {
+					loads.add(executor.submit(() -> userDetailsService.loadUserByUsername("admin")));
+					loads.add(executor.submit(() -> userService.findByUsername("tecnico")));
+				}
+				for (Future<?> load : loads) {
+					load.get();
+				}
+			}
+
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump);
+		Files.delete(dump);
+		assertThat(pinned)
+				.as("pinned virtual threads: %s", pinned)
+				.isEmpty();
+	}
+
+}